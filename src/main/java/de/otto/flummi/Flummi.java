@@ -2,15 +2,20 @@ package de.otto.flummi;
 
 import com.google.gson.JsonObject;
 import de.otto.flummi.request.*;
+import de.otto.flummi.util.ConnectionWarmer;
 import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.MultiGetBatcher;
+import de.otto.flummi.util.StringDictionary;
 import org.asynchttpclient.AsyncHttpClient;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 
 public class Flummi {
     private final HttpClientWrapper httpClient;
+    private volatile MultiGetBatcher getBatcher;
 
     public Flummi(AsyncHttpClient asyncHttpClient, String baseUrl) {
         this.httpClient = new HttpClientWrapper(asyncHttpClient, baseUrl);
@@ -20,6 +25,89 @@ public class Flummi {
         this.httpClient = new HttpClientWrapper(asyncHttpClient, baseUrl, username, password);
     }
 
+    public Flummi(AsyncHttpClient asyncHttpClient, List<String> nodeUrls) {
+        this.httpClient = new HttpClientWrapper(asyncHttpClient, nodeUrls);
+    }
+
+    public Flummi(AsyncHttpClient asyncHttpClient, List<String> nodeUrls, String username, String password) {
+        this.httpClient = new HttpClientWrapper(asyncHttpClient, nodeUrls, username, password);
+    }
+
+    public Flummi(HttpClientWrapper httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Compresses request bodies, e.g. of bulk and search requests, of at least gzipRequestBodyThreshold bytes with gzip.
+     *
+     * @param gzipRequestBodyThreshold the minimum body size in bytes or null to disable compression
+     */
+    public Flummi setGzipRequestBodyThreshold(Integer gzipRequestBodyThreshold) {
+        httpClient.setGzipRequestBodyThreshold(gzipRequestBodyThreshold);
+        return this;
+    }
+
+    /**
+     * Requests gzip compressed responses, see {@link HttpClientWrapper#setCompressResponses(boolean)}.
+     */
+    public Flummi setCompressResponses(boolean compressResponses) {
+        httpClient.setCompressResponses(compressResponses);
+        return this;
+    }
+
+    /**
+     * Parses the responses of asynchronously executed requests, see {@link HttpClientWrapper#setResponseExecutor(Executor)}.
+     */
+    public Flummi setResponseExecutor(Executor responseExecutor) {
+        httpClient.setResponseExecutor(responseExecutor);
+        return this;
+    }
+
+    /**
+     * Shares field names, and optionally string values, of parsed hits and documents, see
+     * {@link HttpClientWrapper#setStringDictionary(StringDictionary)}.
+     */
+    public Flummi setStringDictionary(StringDictionary stringDictionary) {
+        httpClient.setStringDictionary(stringDictionary);
+        return this;
+    }
+
+    /**
+     * Bounds the time of every operation that has no explicit deadline, see {@link HttpClientWrapper#setDefaultDeadlineMillis(Long)}.
+     */
+    public Flummi setDefaultDeadlineMillis(Long defaultDeadlineMillis) {
+        httpClient.setDefaultDeadlineMillis(defaultDeadlineMillis);
+        return this;
+    }
+
+    /**
+     * Sends concurrent gets as batches of at most maxBatchSize documents in one multi-get request, see
+     * {@link MultiGetBatcher}. A get waits at most batchWindowMillis for other gets to join its batch.
+     */
+    public Flummi setGetBatching(int maxBatchSize, long batchWindowMillis) {
+        this.getBatcher = new MultiGetBatcher(httpClient, maxBatchSize, batchWindowMillis);
+        return this;
+    }
+
+    /**
+     * Sends every get on its own, which is the default.
+     */
+    public Flummi disableGetBatching() {
+        this.getBatcher = null;
+        return this;
+    }
+
+    /**
+     * Opens connectionsPerNode connections to every node, see {@link ConnectionWarmer}. Use a started
+     * ConnectionWarmer to also keep the connections alive. Waits at most
+     * {@link ConnectionWarmer#DEFAULT_PROBE_TIMEOUT_MILLIS} for the answers.
+     *
+     * @return true if all nodes answered
+     */
+    public boolean warmUp(int connectionsPerNode) {
+        return new ConnectionWarmer(httpClient, connectionsPerNode).warmUp();
+    }
+
     @Deprecated
     public Optional<String> getIndexNameForAlias(String aliasName) {
         return this.admin().indices().getIndexNameForAlias(aliasName);
@@ -67,7 +155,7 @@ public class Flummi {
     }
 
     public GetRequestBuilder prepareGet(String indexName, String documentType, String id) {
-        return new GetRequestBuilder(httpClient, indexName, documentType, id);
+        return new GetRequestBuilder(httpClient, getBatcher, indexName, documentType, id);
     }
 
     public DeleteRequestBuilder prepareDelete() {
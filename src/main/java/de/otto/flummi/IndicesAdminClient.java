@@ -6,6 +6,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import de.otto.flummi.request.*;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 
 import java.util.List;
@@ -53,9 +54,17 @@ public class IndicesAdminClient {
     }
 
     public JsonObject getIndexSettings() {
-        try {
+        return getIndexSettings(RequestBuilderUtil.EMPTY_ARRAY);
+    }
 
-            Response response = httpClient.prepareGet("/_all/_settings")
+    /**
+     * @param filterPaths the filter_path of the settings to return, e.g. "*.settings.index.number_of_replicas"
+     */
+    public JsonObject getIndexSettings(String... filterPaths) {
+        try {
+            BoundRequestBuilder request = httpClient.prepareGet("/_all/_settings");
+            RequestBuilderUtil.applyFilterPath(request, RequestBuilderUtil.resolveFilterPath(filterPaths, null));
+            Response response = request
                     .addHeader(CONTENT_TYPE, APPL_JSON)
                     .execute().get();
             if (response.getStatusCode() != 200) {
@@ -70,8 +79,17 @@ public class IndicesAdminClient {
     }
 
     public JsonObject getIndexMapping(String indexName) {
+        return getIndexMapping(indexName, RequestBuilderUtil.EMPTY_ARRAY);
+    }
+
+    /**
+     * @param filterPaths the filter_path of the mapping to return, e.g. "*.mappings.*.properties.name"
+     */
+    public JsonObject getIndexMapping(String indexName, String... filterPaths) {
         try {
-            Response response = httpClient.prepareGet("/" + indexName + "/_mapping")
+            BoundRequestBuilder request = httpClient.prepareGet("/" + indexName + "/_mapping");
+            RequestBuilderUtil.applyFilterPath(request, RequestBuilderUtil.resolveFilterPath(filterPaths, null));
+            Response response = request
                     .addHeader(CONTENT_TYPE, APPL_JSON)
                     .execute().get();
             if (response.getStatusCode() != 200) {
@@ -87,7 +105,10 @@ public class IndicesAdminClient {
 
     public List<String> getAllIndexNames() {
         try {
-            Response response = httpClient.prepareGet("/_all")
+            // only the names are read, so every index is reduced to a single setting
+            BoundRequestBuilder request = httpClient.prepareGet("/_all");
+            RequestBuilderUtil.applyFilterPath(request, RequestBuilderUtil.resolveFilterPath(null, "*.settings.index.uuid"));
+            Response response = request
                     .addHeader(CONTENT_TYPE, APPL_JSON)
                     .execute().get();
             if (response.getStatusCode() != 200) {
@@ -106,7 +127,7 @@ public class IndicesAdminClient {
 
     public Optional<String> getIndexNameForAlias(String aliasName) {
         try {
-            Response response = httpClient.prepareGet("/_aliases")
+            Response response = prepareGetAliases(aliasName)
                     .addHeader(CONTENT_TYPE, APPL_JSON)
                     .execute().get();
             if (response.getStatusCode() != 200) {
@@ -134,8 +155,9 @@ public class IndicesAdminClient {
             actions.add(object("add", object("index", indexName, "alias", aliasName)));
             JsonObject jsonObject = object("actions", actions);
 
-            Response response = httpClient
-                    .preparePost("/_aliases")
+            BoundRequestBuilder request = httpClient.preparePost("/_aliases");
+            RequestBuilderUtil.applyFilterPath(request, RequestBuilderUtil.resolveFilterPath(null, "acknowledged"));
+            Response response = request
                     .addHeader(CONTENT_TYPE, APPL_JSON)
                     .setBody(gson.toJson(jsonObject))
                     .execute().get();
@@ -160,7 +182,7 @@ public class IndicesAdminClient {
 
     public boolean aliasExists(String aliasName) {
         try {
-            Response response = httpClient.prepareGet("/_aliases")
+            Response response = prepareGetAliases(aliasName)
                     .addHeader(CONTENT_TYPE, APPL_JSON)
                     .execute().get();
             if (response.getStatusCode() != 200) {
@@ -182,4 +204,12 @@ public class IndicesAdminClient {
             throw new RuntimeException(e);
         }
     }
+
+    // indices without the alias are left out of the response, unless the alias name contains filter path syntax
+    private BoundRequestBuilder prepareGetAliases(String aliasName) {
+        BoundRequestBuilder request = httpClient.prepareGet("/_aliases");
+        String filterPath = aliasName.matches(".*[.*,].*") ? "*.aliases" : "*.aliases." + aliasName;
+        RequestBuilderUtil.applyFilterPath(request, RequestBuilderUtil.resolveFilterPath(null, filterPath));
+        return request;
+    }
 }
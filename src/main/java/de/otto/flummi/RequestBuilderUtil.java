@@ -1,8 +1,29 @@
 package de.otto.flummi;
 
 import de.otto.flummi.response.HttpServerErrorException;
+import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.StreamingResponseHandler;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static de.otto.flummi.util.ListenableCompletableFuture.toCompletableFuture;
+
 public class RequestBuilderUtil {
 
     public static final String[] EMPTY_ARRAY = new String[]{};
@@ -26,6 +47,137 @@ public class RequestBuilderUtil {
         return new HttpServerErrorException(response.getStatusCode(), response.getStatusText() , new String(response.getResponseBodyAsBytes()));
     }
 
+    /**
+     * Like {@link #toHttpServerErrorException(Response)}, for a response whose body is read from the stream.
+     */
+    public static HttpServerErrorException toHttpServerErrorException(Response response, Reader body) {
+        try {
+            StringWriter message = new StringWriter();
+            char[] buffer = new char[4096];
+            for (int read = body.read(buffer); read != -1; read = body.read(buffer)) {
+                message.write(buffer, 0, read);
+            }
+            return new HttpServerErrorException(response.getStatusCode(), response.getStatusText(), message.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the response body as a stream, without copying it into a String first. Gzip compressed bodies
+     * that have not been decompressed by the http client are decompressed while reading.
+     */
+    public static Reader responseBodyReader(Response response) {
+        return bodyReader(response.getResponseBodyAsStream());
+    }
+
+    private static Reader bodyReader(InputStream body) {
+        try {
+            InputStream in = new BufferedInputStream(body);
+            in.mark(2);
+            boolean gzipped = in.read() == 0x1f && in.read() == 0x8b;
+            in.reset();
+            return new InputStreamReader(gzipped ? new GZIPInputStream(in) : in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends the request without blocking and handles the response on the response executor of the http client,
+     * not on the I/O thread. Failures while preparing the request complete the returned future exceptionally.
+     */
+    public static <T> CompletableFuture<T> executeAsync(HttpClientWrapper httpClient, Supplier<BoundRequestBuilder> request, Function<Response, T> handleResponse) {
+        CompletableFuture<Response> response;
+        try {
+            response = toCompletableFuture(request.get().execute());
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        return response.thenApplyAsync(handleResponse, httpClient.getResponseExecutor());
+    }
+
+    /**
+     * Sends the request and passes the status and headers of the response to the handler as soon as they arrive,
+     * together with a reader that streams the body while it is received, so that the body is never held in memory
+     * as a whole. While the handler does not read on, the http client stops reading the body from the connection,
+     * see {@link StreamingResponseHandler}; its I/O thread is never blocked. A body that is not read to the end is
+     * aborted.
+     *
+     * @throws ExecutionException if the request failed, also after the handler began to read the body
+     */
+    public static <T> T executeStreaming(BoundRequestBuilder request, BiFunction<Response, Reader, T> handleResponse) throws InterruptedException, ExecutionException {
+        StreamingResponseHandler handler = new StreamingResponseHandler();
+        request.execute(handler);
+        Response response;
+        try {
+            response = handler.getResponse().get();
+        } catch (InterruptedException e) {
+            handler.abort();
+            throw e;
+        }
+        return handleStreamedResponse(handler, response, handleResponse);
+    }
+
+    /**
+     * Like {@link #executeStreaming(BoundRequestBuilder, BiFunction)}, without blocking. Once the status and headers
+     * arrived, the handler reads the body on the response executor of the http client. Failures while preparing the
+     * request complete the returned future exceptionally.
+     */
+    public static <T> CompletableFuture<T> executeStreamingAsync(HttpClientWrapper httpClient, Supplier<BoundRequestBuilder> request, BiFunction<Response, Reader, T> handleResponse) {
+        StreamingResponseHandler handler = new StreamingResponseHandler();
+        try {
+            request.get().execute(handler);
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return handler.getResponse().thenApplyAsync(response -> {
+            try {
+                return handleStreamedResponse(handler, response, handleResponse);
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }, httpClient.getResponseExecutor());
+    }
+
+    private static <T> T handleStreamedResponse(StreamingResponseHandler handler, Response response, BiFunction<Response, Reader, T> handleResponse) throws ExecutionException {
+        try {
+            return handleResponse.apply(response, bodyReader(handler.getBody()));
+        } catch (RuntimeException e) {
+            // a failed request ends the body early, report the failure rather than the truncated body
+            if (handler.getFailure() != null) {
+                throw new ExecutionException(handler.getFailure());
+            }
+            throw e;
+        } finally {
+            handler.abort();
+        }
+    }
+
+    /**
+     * @param filterPaths       the filter paths set on a request builder, null to use the default filter path of the
+     *                          builder and empty to not filter the response
+     * @param defaultFilterPath the fields read by the builder
+     * @return the filter_path parameter, or null if the response is not filtered. The error and status of error
+     * responses are always kept.
+     */
+    public static String resolveFilterPath(String[] filterPaths, String defaultFilterPath) {
+        String filterPath = filterPaths == null ? defaultFilterPath : String.join(",", filterPaths);
+        return filterPath == null || filterPath.isEmpty() ? null : filterPath + ",error,status";
+    }
+
+    /**
+     * Makes Elasticsearch leave all fields that do not match the filter path out of the response.
+     */
+    public static void applyFilterPath(BoundRequestBuilder boundRequestBuilder, String filterPath) {
+        if (filterPath != null) {
+            boundRequestBuilder.addQueryParam("filter_path", filterPath);
+        }
+    }
+
     public static String buildUrl(String indexName, String type, String operationOrId) {
         String[] types = type != null ? new String[]{type} : EMPTY_ARRAY;
         String[] indexNames = indexName != null ? new String[]{indexName} : EMPTY_ARRAY;
@@ -1,15 +1,18 @@
 package de.otto.flummi.request;
 
 import com.google.gson.*;
+import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.response.AnalyzeResponse;
 import de.otto.flummi.response.Token;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
@@ -38,55 +41,64 @@ public class AnalyzeRequestBuilder implements RequestBuilder<AnalyzeResponse> {
 
     @Override
     public AnalyzeResponse execute() {
-        JsonObject body = new JsonObject();
         try {
-            String url = buildUrl();
+            return handleResponse(prepareRequest().execute().get());
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            if (text != null) {
-                body.add("text", new JsonPrimitive(text));
-            }
+    @Override
+    public CompletableFuture<AnalyzeResponse> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
 
-            if (analyzer != null) {
-                body.add("analyzer", new JsonPrimitive(analyzer));
-            }
+    private BoundRequestBuilder prepareRequest() {
+        JsonObject body = new JsonObject();
+        String url = buildUrl();
 
-            if (tokenizer != null) {
-                body.add("tokenizer", new JsonPrimitive(tokenizer));
-            }
+        if (text != null) {
+            body.add("text", new JsonPrimitive(text));
+        }
 
-            if (field != null) {
-                body.add("field", new JsonPrimitive(field));
-            }
+        if (analyzer != null) {
+            body.add("analyzer", new JsonPrimitive(analyzer));
+        }
 
-            if (filters != null) {
-                body.add("filter", filters);
-            }
+        if (tokenizer != null) {
+            body.add("tokenizer", new JsonPrimitive(tokenizer));
+        }
 
-            if (characterFilters != null) {
-                body.add("char_filter", characterFilters);
-            }
+        if (field != null) {
+            body.add("field", new JsonPrimitive(field));
+        }
 
-            Response response = httpClient
-                    .prepareGet(url)
-                    .setCharset(Charset.forName("UTF-8"))
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .setBody(gson.toJson(body))
-                    .execute()
-                    .get();
+        if (filters != null) {
+            body.add("filter", filters);
+        }
 
-            if (response.getStatusCode() != 200) {
-                throw toHttpServerErrorException(response);
-            }
+        if (characterFilters != null) {
+            body.add("char_filter", characterFilters);
+        }
 
-            JsonObject jsonResponse = gson.fromJson(response.getResponseBody(), JsonObject.class);
-            AnalyzeResponse.Builder analyzeResponse = parseResponse(jsonResponse);
+        return httpClient
+                .prepareGet(url)
+                .setCharset(Charset.forName("UTF-8"))
+                .addHeader(CONTENT_TYPE, APPL_JSON)
+                .setBody(gson.toJson(body));
+    }
 
-            return analyzeResponse.build();
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+    private AnalyzeResponse handleResponse(Response response) {
+        if (response.getStatusCode() != 200) {
+            throw toHttpServerErrorException(response);
         }
+
+        JsonObject jsonResponse = gson.fromJson(response.getResponseBody(), JsonObject.class);
+        AnalyzeResponse.Builder analyzeResponse = parseResponse(jsonResponse);
+
+        return analyzeResponse.build();
     }
 
     private String buildUrl() {
@@ -5,8 +5,11 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import de.otto.flummi.InvalidElasticsearchResponseException;
+import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.bulkactions.BulkActionBuilder;
+import de.otto.flummi.util.Deadline;
 import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.RequestPriority;
 import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
@@ -15,6 +18,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
@@ -23,11 +27,16 @@ import static de.otto.flummi.request.RequestConstants.CONTENT_TYPE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class BulkRequestBuilder implements RequestBuilder<Void> {
+    // the items of successful actions are left out, except for the status of updates
+    private static final String FILTER_PATH = "errors,items.*.error,items.update.status";
     private final Gson gson;
     private List<BulkActionBuilder> actions = new ArrayList();
 
     public static final Logger LOG = getLogger(BulkRequestBuilder.class);
     private HttpClientWrapper httpClient;
+    private Deadline deadline;
+    private RequestPriority priority;
+    private String[] filterPaths;
 
     public BulkRequestBuilder(HttpClientWrapper httpClient) {
         this.httpClient = httpClient;
@@ -40,67 +49,113 @@ public class BulkRequestBuilder implements RequestBuilder<Void> {
         return this;
     }
 
+    /**
+     * Bounds the total time of this operation, see {@link Deadline}.
+     */
+    public BulkRequestBuilder setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Overrides the default priority of the request, see {@link RequestPriority}.
+     */
+    public BulkRequestBuilder setPriority(RequestPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Overrides the filter_path of the request. By default only the errors are requested; without filter paths the
+     * results of all actions are requested.
+     */
+    public BulkRequestBuilder setFilterPath(String... filterPaths) {
+        this.filterPaths = filterPaths;
+        return this;
+    }
+
     @Override
     public Void execute() {
+        if (actions.isEmpty()) {
+            return null;
+        }
         try {
-            if (actions.isEmpty()) {
-                return null;
-            }
+            return handleResponse(prepareRequest().execute().get());
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            StringBuilder postBody = new StringBuilder();
+    @Override
+    public CompletableFuture<Void> executeAsync() {
+        if (actions.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
 
-            for (BulkActionBuilder action : this.actions) {
-                postBody.append(action.toBulkRequestAction()).append("\n");
-            }
+    private BoundRequestBuilder prepareRequest() {
+        StringBuilder postBody = new StringBuilder();
 
-	        final BoundRequestBuilder boundRequestBuilder = httpClient
-	                .preparePost("/_bulk")
-.addHeader(CONTENT_TYPE,APPL_JSON)
-                    .setBody(postBody.toString())
-	                .setCharset(Charset.forName("UTF-8"));
+        for (BulkActionBuilder action : this.actions) {
+            postBody.append(action.toBulkRequestAction()).append("\n");
+        }
 
-            Response response = boundRequestBuilder.execute().get();
-            if (response.getStatusCode() >= 300) {
-                throw toHttpServerErrorException(response);
-            }
-            String jsonString = response.getResponseBody();
-            JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
-
-            String errors = responseObject.get("errors").getAsString();
-
-            if (("true").equals(errors)) {
-                LOG.error("Error in bulk request detected {}", jsonString);
-                boolean foundError = false;
-                JsonArray items = responseObject.get("items") != null ? responseObject.get("items").getAsJsonArray() : new JsonArray();
-                for (JsonElement jsonElement : items) {
-                    JsonElement updateField = jsonElement.getAsJsonObject().get("update");
-                    if (updateField != null) {
-                        final JsonElement status = updateField.getAsJsonObject().get("status");
-                        final JsonElement error = updateField.getAsJsonObject().get("error");
-                        if (status != null && status.getAsInt() != 404 && error != null && error.isJsonPrimitive() && !error.getAsString().isEmpty()) {
+        final BoundRequestBuilder boundRequestBuilder = httpClient
+                .preparePost("/_bulk")
+                .addHeader(CONTENT_TYPE, APPL_JSON)
+                .setBody(postBody.toString())
+                .setCharset(Charset.forName("UTF-8"));
+
+        if (deadline != null) {
+            deadline.applyTo(boundRequestBuilder);
+        }
+        if (priority != null) {
+            priority.applyTo(boundRequestBuilder);
+        }
+        RequestBuilderUtil.applyFilterPath(boundRequestBuilder, RequestBuilderUtil.resolveFilterPath(filterPaths, FILTER_PATH));
+        return boundRequestBuilder;
+    }
+
+    private Void handleResponse(Response response) {
+        if (response.getStatusCode() >= 300) {
+            throw toHttpServerErrorException(response);
+        }
+        String jsonString = response.getResponseBody();
+        JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
+
+        String errors = responseObject.get("errors").getAsString();
+
+        if (("true").equals(errors)) {
+            LOG.error("Error in bulk request detected {}", jsonString);
+            boolean foundError = false;
+            JsonArray items = responseObject.get("items") != null ? responseObject.get("items").getAsJsonArray() : new JsonArray();
+            for (JsonElement jsonElement : items) {
+                JsonElement updateField = jsonElement.getAsJsonObject().get("update");
+                if (updateField != null) {
+                    final JsonElement status = updateField.getAsJsonObject().get("status");
+                    final JsonElement error = updateField.getAsJsonObject().get("error");
+                    if (status != null && status.getAsInt() != 404 && error != null && error.isJsonPrimitive() && !error.getAsString().isEmpty()) {
+                        foundError = true;
+                    }
+                } else {
+                    for (Map.Entry<String, JsonElement> opElement : jsonElement.getAsJsonObject().entrySet()) {
+                        JsonObject opObject = opElement.getValue().getAsJsonObject();
+                        JsonElement errorObj = opObject.get("error");
+                        if (errorObj != null && errorObj.isJsonPrimitive() && !errorObj.getAsString().isEmpty()) {
                             foundError = true;
                         }
-                    } else {
-                        for (Map.Entry<String, JsonElement> opElement : jsonElement.getAsJsonObject().entrySet()) {
-                            JsonObject opObject = opElement.getValue().getAsJsonObject();
-                            JsonElement errorObj = opObject.get("error");
-                            if (errorObj != null && errorObj.isJsonPrimitive() && !errorObj.getAsString().isEmpty()) {
-                                foundError = true;
-                            }
-                        }
                     }
                 }
+            }
 
-                if (foundError) {
-                    throw new InvalidElasticsearchResponseException("Response contains errors': " + jsonString);
-                }
+            if (foundError) {
+                throw new InvalidElasticsearchResponseException("Response contains errors': " + jsonString);
             }
-            return null;
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
         }
+        return null;
     }
 
     public int size() {
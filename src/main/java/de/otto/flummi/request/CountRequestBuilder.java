@@ -4,9 +4,11 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
@@ -37,20 +39,31 @@ public class CountRequestBuilder implements RequestBuilder<Long> {
     @Override
     public Long execute() {
         try {
-            String url = RequestBuilderUtil.buildUrl(indices, types, "_count");
-            Response response = httpClient.prepareGet(url)
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300) {
-                throw toHttpServerErrorException(response);
-            }
-            String jsonString = response.getResponseBody();
-            JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
-            return responseObject.get("count").getAsLong();
+            return handleResponse(prepareRequest().execute().get());
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         } catch (ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Long> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        String url = RequestBuilderUtil.buildUrl(indices, types, "_count");
+        return httpClient.prepareGet(url)
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
+
+    private Long handleResponse(Response response) {
+        if (response.getStatusCode() >= 300) {
+            throw toHttpServerErrorException(response);
+        }
+        String jsonString = response.getResponseBody();
+        JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
+        return responseObject.get("count").getAsLong();
+    }
+}
@@ -5,10 +5,12 @@ import com.google.gson.JsonObject;
 import de.otto.flummi.InvalidElasticsearchResponseException;
 import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.request.RequestConstants.APPL_JSON;
@@ -41,7 +43,21 @@ public class CreateIndexRequestBuilder implements RequestBuilder<Void> {
     }
 
     public Void execute() {
+        try {
+            return handleResponse(prepareRequest().execute().get());
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
 
+    private BoundRequestBuilder prepareRequest() {
         JsonObject jsonObject = new JsonObject();
         if (settings != null) {
             jsonObject.add("settings", settings);
@@ -49,23 +65,19 @@ public class CreateIndexRequestBuilder implements RequestBuilder<Void> {
         if (mappings != null) {
             jsonObject.add("mappings", mappings);
         }
-        try {
-            Response response = httpClient.preparePut("/" + indexName).setBody(jsonObject.toString()).setCharset(Charset.forName("UTF-8"))
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300) {
-                throw RequestBuilderUtil.toHttpServerErrorException(response);
-            }
-            String jsonString = response.getResponseBody();
-            JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
-            if (!responseObject.has("acknowledged") || !responseObject.get("acknowledged").getAsBoolean()) {
-                throw new InvalidElasticsearchResponseException("Invalid reply from Elastic Search: " + jsonString);
-            }
-            return null;
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+        return httpClient.preparePut("/" + indexName).setBody(jsonObject.toString()).setCharset(Charset.forName("UTF-8"))
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
+
+    private Void handleResponse(Response response) {
+        if (response.getStatusCode() >= 300) {
+            throw RequestBuilderUtil.toHttpServerErrorException(response);
+        }
+        String jsonString = response.getResponseBody();
+        JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
+        if (!responseObject.has("acknowledged") || !responseObject.get("acknowledged").getAsBoolean()) {
+            throw new InvalidElasticsearchResponseException("Invalid reply from Elastic Search: " + jsonString);
         }
+        return null;
     }
 }
@@ -2,8 +2,10 @@ package de.otto.flummi.request;
 
 import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
@@ -21,23 +23,34 @@ public class DeleteIndexRequestBuilder implements RequestBuilder<Void> {
     }
 
     public Void execute() {
-        if (indexNames.length == 0) {
-            throw new RuntimeException("index names are missing");
-        }
         try {
-            String url = RequestBuilderUtil.buildUrl(indexNames, null, null);
-            Response response = httpClient.prepareDelete(url)
-.addHeader(CONTENT_TYPE,APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300 && response.getStatusCode() != 404) {
-                throw RequestBuilderUtil.toHttpServerErrorException(response);
-            }
-            return null;
+            return handleResponse(prepareRequest().execute().get());
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public CompletableFuture<Void> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        if (indexNames.length == 0) {
+            throw new RuntimeException("index names are missing");
+        }
+        String url = RequestBuilderUtil.buildUrl(indexNames, null, null);
+        return httpClient.prepareDelete(url)
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
+
+    private Void handleResponse(Response response) {
+        if (response.getStatusCode() >= 300 && response.getStatusCode() != 404) {
+            throw RequestBuilderUtil.toHttpServerErrorException(response);
+        }
+        return null;
+    }
+
     private String[] toArray(Stream<String> indexNames) {
         return indexNames == null ? null : indexNames.collect(toList()).toArray(new String[] {});
     }
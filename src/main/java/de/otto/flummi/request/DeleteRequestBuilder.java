@@ -2,11 +2,13 @@ package de.otto.flummi.request;
 
 import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.RequestBuilderUtil.buildUrl;
@@ -43,28 +45,41 @@ public class DeleteRequestBuilder implements RequestBuilder<Void> {
 
     public Void execute() {
         try {
-            if (indexName == null || indexName.isEmpty()) {
-                throw new RuntimeException("missing property 'indexName'");
-            }
-            if (documentType == null || documentType.isEmpty()) {
-                throw new RuntimeException("missing property 'type'");
-            }
-            if (id == null || id.isEmpty()) {
-                throw new RuntimeException("missing property 'id'");
-            }
-            Response response = httpClient.prepareDelete(buildUrl(indexName, documentType, URLEncoder.encode(id, "UTF-8")))
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300) {
-                throw RequestBuilderUtil.toHttpServerErrorException(response);
-            }
-            return null;
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
+            return handleResponse(prepareRequest().execute().get());
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         } catch (ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public CompletableFuture<Void> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        if (indexName == null || indexName.isEmpty()) {
+            throw new RuntimeException("missing property 'indexName'");
+        }
+        if (documentType == null || documentType.isEmpty()) {
+            throw new RuntimeException("missing property 'type'");
+        }
+        if (id == null || id.isEmpty()) {
+            throw new RuntimeException("missing property 'id'");
+        }
+        try {
+            return httpClient.prepareDelete(buildUrl(indexName, documentType, URLEncoder.encode(id, "UTF-8")))
+                    .addHeader(CONTENT_TYPE, APPL_JSON);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Void handleResponse(Response response) {
+        if (response.getStatusCode() >= 300) {
+            throw RequestBuilderUtil.toHttpServerErrorException(response);
+        }
+        return null;
+    }
 }
@@ -1,9 +1,12 @@
 package de.otto.flummi.request;
 
+import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
@@ -24,17 +27,27 @@ public class ForceMergeRequestBuilder {
 
     public void execute() {
         try {
-            Response response = httpClient.preparePost("/" + indexName + "/_forcemerge")
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300) {
-                throw toHttpServerErrorException(response);
-            }
-            return;
+            handleResponse(prepareRequest().execute().get());
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         } catch (ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
+
+    public CompletableFuture<Void> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        return httpClient.preparePost("/" + indexName + "/_forcemerge")
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
+
+    private Void handleResponse(Response response) {
+        if (response.getStatusCode() >= 300) {
+            throw toHttpServerErrorException(response);
+        }
+        return null;
+    }
 }
@@ -1,18 +1,25 @@
 package de.otto.flummi.request;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.response.GetResponse;
+import de.otto.flummi.util.Deadline;
 import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.MultiGetBatcher;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URLEncoder;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import static de.otto.flummi.RequestBuilderUtil.responseBodyReader;
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
 import static de.otto.flummi.request.RequestConstants.APPL_JSON;
 import static de.otto.flummi.request.RequestConstants.CONTENT_TYPE;
@@ -24,39 +31,71 @@ public class GetRequestBuilder implements RequestBuilder<GetResponse> {
     private final String documentType;
     private final String id;
     private final Gson gson;
+    private final MultiGetBatcher batcher;
+    private Deadline deadline;
 
     public static final Logger LOG = getLogger(GetRequestBuilder.class);
 
     public GetRequestBuilder(HttpClientWrapper httpClient, String indexName, String documentType, String id) {
+        this(httpClient, null, indexName, documentType, id);
+    }
+
+    /**
+     * @param batcher sends the get as part of a multi-get request, or null to send it on its own
+     */
+    public GetRequestBuilder(HttpClientWrapper httpClient, MultiGetBatcher batcher, String indexName, String documentType, String id) {
         this.httpClient = httpClient;
+        this.batcher = batcher;
         this.indexName = indexName;
         this.documentType = documentType;
         this.id = id;
         this.gson = new Gson();
     }
 
+    /**
+     * Bounds the total time of this operation, see {@link Deadline}. Gets with a deadline are not batched.
+     */
+    public GetRequestBuilder setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     @Override
     public GetResponse execute() {
         try {
-            String url = RequestBuilderUtil.buildUrl(indexName, documentType, URLEncoder.encode(id, "UTF-8"));
-            Response response = httpClient.prepareGet(url)
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300 && 404 != response.getStatusCode()) {
-                throw toHttpServerErrorException(response);
+            if (isBatched()) {
+                return getBatched();
             }
+            return handleResponse(prepareRequest().execute().get());
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            if (404 == response.getStatusCode()) {
-                return new GetResponse(false, null, id);
-            }
-            String jsonString = response.getResponseBody();
-            JsonObject responseObject = gson.fromJson(jsonString, JsonObject.class);
-            return new GetResponse(true, responseObject != null && responseObject.get("_source") != null
-                    ? responseObject.get("_source").getAsJsonObject()
-                    : null, responseObject.get("_id").getAsString());
+    // throws the errors of the response like a get that is not batched
+    private GetResponse getBatched() throws InterruptedException {
+        try {
+            return batcher.get(indexName, documentType, id).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e);
+        }
+    }
 
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    /**
+     * Executes the get without batching and binds the _source to the given type while parsing the response.
+     */
+    public <T> Optional<T> execute(Class<T> sourceType) {
+        return execute(gson.getAdapter(sourceType));
+    }
+
+    /**
+     * Executes the get without batching and binds the _source with the given adapter while parsing the response.
+     */
+    public <T> Optional<T> execute(TypeAdapter<T> sourceAdapter) {
+        try {
+            return handleResponse(prepareRequest().execute().get(), sourceAdapter);
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         } catch (ExecutionException e) {
@@ -64,4 +103,86 @@ public class GetRequestBuilder implements RequestBuilder<GetResponse> {
         }
     }
 
+    @Override
+    public CompletableFuture<GetResponse> executeAsync() {
+        if (isBatched()) {
+            return batcher.get(indexName, documentType, id);
+        }
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private boolean isBatched() {
+        return batcher != null && deadline == null;
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        try {
+            String url = RequestBuilderUtil.buildUrl(indexName, documentType, URLEncoder.encode(id, "UTF-8"));
+            BoundRequestBuilder boundRequestBuilder = httpClient.prepareGet(url);
+            if (deadline != null) {
+                deadline.applyTo(boundRequestBuilder);
+            }
+            return boundRequestBuilder
+                    .addHeader(CONTENT_TYPE, APPL_JSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private GetResponse handleResponse(Response response) {
+        if (response.getStatusCode() >= 300 && 404 != response.getStatusCode()) {
+            throw toHttpServerErrorException(response);
+        }
+
+        if (404 == response.getStatusCode()) {
+            return new GetResponse(false, null, id);
+        }
+        String id = null;
+        byte[] source = null;
+        try (JsonReader reader = new JsonReader(responseBodyReader(response))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "_id":
+                        id = reader.nextString();
+                        break;
+                    case "_source":
+                        source = JsonStreams.toUtf8Bytes(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return GetResponse.withRawSource(source, httpClient.getStringDictionary(), id);
+    }
+
+    private <T> Optional<T> handleResponse(Response response, TypeAdapter<T> sourceAdapter) {
+        if (response.getStatusCode() >= 300 && 404 != response.getStatusCode()) {
+            throw toHttpServerErrorException(response);
+        }
+
+        if (404 == response.getStatusCode()) {
+            return Optional.empty();
+        }
+        T source = null;
+        try (JsonReader reader = new JsonReader(responseBodyReader(response))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("_source".equals(reader.nextName())) {
+                    source = sourceAdapter.read(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Optional.ofNullable(source);
+    }
+
 }
@@ -3,6 +3,7 @@ package de.otto.flummi.request;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.domain.index.Index;
 import de.otto.flummi.util.HttpClientWrapper;
 import org.asynchttpclient.BoundRequestBuilder;
@@ -12,6 +13,7 @@ import org.slf4j.Logger;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.RequestBuilderUtil.buildUrl;
@@ -74,6 +76,21 @@ public class IndexRequestBuilder implements RequestBuilder<Void> {
 
     @Override
     public Void execute() {
+        try {
+            return handleResponse(prepareRequest().execute().get());
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
         if (source == null) {
             if (index == null) {
                 throw new IllegalStateException("either source or indexSettings must exist");
@@ -97,22 +114,20 @@ public class IndexRequestBuilder implements RequestBuilder<Void> {
             }
 
             String body = createBody();
-            Response response = reqBuilder.setBody(body).setCharset(Charset.forName("UTF-8"))
-.addHeader(CONTENT_TYPE,APPL_JSON)
-                    .execute().get();
-            if (response.getStatusCode() >= 300) {
-                throw toHttpServerErrorException(response);
-            }
-            return null;
+            return reqBuilder.setBody(body).setCharset(Charset.forName("UTF-8"))
+                    .addHeader(CONTENT_TYPE, APPL_JSON);
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
         }
     }
 
+    private Void handleResponse(Response response) {
+        if (response.getStatusCode() >= 300) {
+            throw toHttpServerErrorException(response);
+        }
+        return null;
+    }
+
     private String createBody() {
         if (source != null) {
             return gson.toJson(source);
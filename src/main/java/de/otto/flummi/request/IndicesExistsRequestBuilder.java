@@ -1,10 +1,13 @@
 package de.otto.flummi.request;
 
+import de.otto.flummi.RequestBuilderUtil;
 import de.otto.flummi.response.HttpServerErrorException;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static de.otto.flummi.request.RequestConstants.APPL_JSON;
@@ -24,18 +27,29 @@ public class IndicesExistsRequestBuilder implements RequestBuilder<Boolean> {
 
     public Boolean execute() {
         try {
-            Response response = httpClient.prepareHead("/" + indexName)
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute().get();
-            int statusCode = response.getStatusCode();
-            if (statusCode >= 300 && response.getStatusCode() != 404) {
-                throw new HttpServerErrorException(response.getStatusCode(), response.getStatusText(), response.getResponseBody());
-            }
-            return statusCode < 300;
+            return handleResponse(prepareRequest().execute().get());
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         } catch (ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public CompletableFuture<Boolean> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        return httpClient.prepareHead("/" + indexName)
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
+
+    private Boolean handleResponse(Response response) {
+        int statusCode = response.getStatusCode();
+        if (statusCode >= 300 && response.getStatusCode() != 404) {
+            throw new HttpServerErrorException(response.getStatusCode(), response.getStatusText(), response.getResponseBody());
+        }
+        return statusCode < 300;
+    }
 }
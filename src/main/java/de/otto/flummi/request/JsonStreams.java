@@ -0,0 +1,80 @@
+package de.otto.flummi.request;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Copies json values token by token, without building a json tree.
+ */
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    /**
+     * @return the next value of the reader as UTF-8 encoded json
+     */
+    static byte[] toUtf8Bytes(JsonReader reader) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, UTF_8))) {
+            copy(reader, writer);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Copies the next value of the reader to the writer.
+     */
+    static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                    break;
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    writer.name(reader.nextName());
+                    break;
+                case STRING:
+                    writer.value(reader.nextString());
+                    break;
+                case NUMBER:
+                    // keeps the number literally, e.g. without converting longs to doubles
+                    writer.jsonValue(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    writer.value(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    writer.nullValue();
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected json token " + reader.peek());
+            }
+        } while (depth > 0);
+    }
+}
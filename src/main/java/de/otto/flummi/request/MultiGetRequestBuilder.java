@@ -1,22 +1,30 @@
 package de.otto.flummi.request;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import de.otto.flummi.RequestBuilderUtil;
+import de.otto.flummi.response.MultiGetDocumentException;
 import de.otto.flummi.response.MultiGetRequestDocument;
 import de.otto.flummi.response.MultiGetResponse;
 import de.otto.flummi.response.MultiGetResponseDocument;
+import de.otto.flummi.util.Deadline;
 import de.otto.flummi.util.HttpClientWrapper;
 import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import static de.otto.flummi.RequestBuilderUtil.responseBodyReader;
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
 import static de.otto.flummi.request.GsonHelper.array;
+import static de.otto.flummi.request.GsonHelper.object;
 import static de.otto.flummi.request.RequestConstants.APPL_JSON;
 import static de.otto.flummi.request.RequestConstants.CONTENT_TYPE;
 import static java.util.Collections.emptyList;
@@ -24,6 +32,7 @@ import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class MultiGetRequestBuilder implements RequestBuilder<MultiGetResponse> {
+    private static final String FILTER_PATH = "docs._id,docs.found,docs._source,docs.error";
 
     private final String[] indices;
     private final Gson gson;
@@ -31,6 +40,9 @@ public class MultiGetRequestBuilder implements RequestBuilder<MultiGetResponse>
     private String[] types;
     private Integer timeoutMillis;
     private List<MultiGetRequestDocument> documents;
+    private Deadline deadline;
+    private TypeAdapter<Object> sourceAdapter;
+    private String[] filterPaths;
 
     public static final Logger LOG = getLogger(MultiGetRequestBuilder.class);
 
@@ -51,63 +63,184 @@ public class MultiGetRequestBuilder implements RequestBuilder<MultiGetResponse>
         return this;
     }
 
+    /**
+     * Overrides the filter_path of the request. By default only the fields read by Flummi are requested; without
+     * filter paths the whole response is requested.
+     */
+    public MultiGetRequestBuilder setFilterPath(String... filterPaths) {
+        this.filterPaths = filterPaths;
+        return this;
+    }
+
     public MultiGetRequestBuilder setTimeoutMillis(Integer timeoutMillis) {
         this.timeoutMillis = timeoutMillis;
         return this;
     }
 
+    /**
+     * Bounds the total time of this operation, see {@link Deadline}.
+     */
+    public MultiGetRequestBuilder setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Binds the _source of the documents with the given adapter while parsing the response, without building a json
+     * tree first. The bound objects are returned by {@link MultiGetResponseDocument#getSource(TypeAdapter)}.
+     */
+    @SuppressWarnings("unchecked")
+    public MultiGetRequestBuilder setSourceAdapter(TypeAdapter<?> sourceAdapter) {
+        this.sourceAdapter = (TypeAdapter<Object>) sourceAdapter;
+        return this;
+    }
+
+    /**
+     * Executes the multi-get and binds the _source of the documents to the given type while parsing the response.
+     *
+     * @return the sources in the order of the requested documents, null for documents that were not found
+     * @throws MultiGetDocumentException if a document could not be read
+     */
+    public <T> List<T> execute(Class<T> sourceType) {
+        return execute(gson.getAdapter(sourceType));
+    }
+
+    /**
+     * Executes the multi-get and binds the _source of the documents with the given adapter while parsing the response.
+     *
+     * @return the sources in the order of the requested documents, null for documents that were not found
+     * @throws MultiGetDocumentException if a document could not be read
+     */
+    public <T> List<T> execute(TypeAdapter<T> sourceAdapter) {
+        return setSourceAdapter(sourceAdapter).execute().getMultiGetResponseDocuments().stream()
+                .map(document -> {
+                    if (document.getError() != null) {
+                        throw new MultiGetDocumentException(document.getId(), document.getError());
+                    }
+                    return document.isFound() ? document.getSource(sourceAdapter) : null;
+                })
+                .collect(toList());
+    }
+
     @Override
     public MultiGetResponse execute() {
         try {
-            String url = RequestBuilderUtil.buildUrl(indices, types, "_mget");
-            JsonObject body = new JsonObject();
-            if (documents != null) {
-                body.add("docs", array(documents.stream().map(d -> create(d)).collect(toList())));
-            }
-            BoundRequestBuilder boundRequestBuilder = httpClient
-                    .preparePost(url)
-                    .setCharset(Charset.forName("UTF-8"));
-            if (timeoutMillis != null) {
-                boundRequestBuilder.setRequestTimeout(timeoutMillis);
-            }
             long start = System.currentTimeMillis();
-            Response response = boundRequestBuilder.setBody(gson.toJson(body))
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute()
-                    .get();
-
-            long tookInMillis = System.currentTimeMillis() - start;
-            //Did not find an entry
-            if (response.getStatusCode() == 404) {
-                return new MultiGetResponse(emptyList(), tookInMillis);
-            }
+            Response response = prepareRequest().execute().get();
+            return handleResponse(response, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            //Server Error
-            if (response.getStatusCode() >= 300) {
-                throw toHttpServerErrorException(response);
-            }
+    @Override
+    public CompletableFuture<MultiGetResponse> executeAsync() {
+        long start = System.currentTimeMillis();
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, response -> handleResponse(response, System.currentTimeMillis() - start));
+    }
+
+    private BoundRequestBuilder prepareRequest() {
+        String url = RequestBuilderUtil.buildUrl(indices, types, "_mget");
+        JsonObject body = new JsonObject();
+        if (documents != null) {
+            body.add("docs", array(documents.stream().map(d -> create(d)).collect(toList())));
+        }
+        BoundRequestBuilder boundRequestBuilder = httpClient
+                .preparePost(url)
+                .setCharset(Charset.forName("UTF-8"));
+        if (timeoutMillis != null) {
+            boundRequestBuilder.setRequestTimeout(timeoutMillis);
+        }
+        if (deadline != null) {
+            deadline.applyTo(boundRequestBuilder);
+        }
+        RequestBuilderUtil.applyFilterPath(boundRequestBuilder, RequestBuilderUtil.resolveFilterPath(filterPaths, FILTER_PATH));
+        return boundRequestBuilder.setBody(gson.toJson(body))
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
 
-            JsonObject jsonObject = gson.fromJson(response.getResponseBody(), JsonObject.class);
-            JsonArray docs = jsonObject.get("docs").getAsJsonArray();
-
-            List<MultiGetResponseDocument> documents = new ArrayList<>();
-            for (JsonElement doc : docs) {
-                JsonObject jsonDoc = doc.getAsJsonObject();
-                String id = jsonDoc.get("_id").getAsString();
-                JsonObject source = new JsonObject();
-                boolean found = jsonDoc.get("found").getAsBoolean();
-                if (found) {
-                    source = jsonDoc.get("_source").getAsJsonObject();
+    private MultiGetResponse handleResponse(Response response, long tookInMillis) {
+        //Did not find an entry
+        if (response.getStatusCode() == 404) {
+            return new MultiGetResponse(emptyList(), tookInMillis);
+        }
+
+        //Server Error
+        if (response.getStatusCode() >= 300) {
+            throw toHttpServerErrorException(response);
+        }
+
+        List<MultiGetResponseDocument> documents = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(responseBodyReader(response))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("docs".equals(reader.nextName())) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        documents.add(readDocument(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
                 }
-                documents.add(new MultiGetResponseDocument(id, found, source));
             }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
-            return new MultiGetResponse(documents, tookInMillis);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+        return new MultiGetResponse(documents, tookInMillis);
+    }
+
+    private MultiGetResponseDocument readDocument(JsonReader reader) throws IOException {
+        String id = null;
+        boolean found = false;
+        JsonObject error = null;
+        byte[] source = null;
+        Object boundSource = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "_id":
+                    id = reader.nextString();
+                    break;
+                case "found":
+                    found = reader.nextBoolean();
+                    break;
+                case "error":
+                    error = readError(reader);
+                    break;
+                case "_source":
+                    if (sourceAdapter != null) {
+                        boundSource = sourceAdapter.read(reader);
+                    } else {
+                        source = JsonStreams.toUtf8Bytes(reader);
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
+        reader.endObject();
+        // documents that could not be read, e.g. of missing indices or unavailable shards, have an error instead of the found field
+        if (error != null) {
+            return MultiGetResponseDocument.withError(id, error);
+        }
+        if (found && sourceAdapter != null) {
+            return MultiGetResponseDocument.withBoundSource(id, boundSource, sourceAdapter);
+        }
+        if (found) {
+            return MultiGetResponseDocument.withRawSource(id, source, httpClient.getStringDictionary());
+        }
+        return new MultiGetResponseDocument(id, false, new JsonObject());
+    }
+
+    // older versions of Elasticsearch report the error as a string
+    private static JsonObject readError(JsonReader reader) throws IOException {
+        JsonElement error = new JsonParser().parse(reader);
+        return error.isJsonObject() ? error.getAsJsonObject() : object("reason", error);
     }
 
     private JsonObject create(MultiGetRequestDocument multiGetRequestDocument) {
@@ -1,6 +1,17 @@
 package de.otto.flummi.request;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RequestBuilder<R> {
 
     R execute();
+
+    /**
+     * Executes the request without blocking the calling thread. The request builders of flummi parse the response
+     * on the response executor of the http client. The default implementation, for request builders that do not
+     * override it, runs {@link #execute()} on the common fork join pool.
+     */
+    default CompletableFuture<R> executeAsync() {
+        return CompletableFuture.supplyAsync(this::execute);
+    }
 }
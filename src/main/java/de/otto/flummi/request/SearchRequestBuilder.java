@@ -8,18 +8,26 @@ import de.otto.flummi.query.QueryBuilder;
 import de.otto.flummi.query.sort.FieldSortBuilder;
 import de.otto.flummi.query.sort.SortBuilder;
 import de.otto.flummi.response.*;
+import de.otto.flummi.util.Deadline;
 import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.RequestPriority;
 import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collector;
+import java.util.stream.Stream;
 
+import static de.otto.flummi.RequestBuilderUtil.responseBodyReader;
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
+import static de.otto.flummi.request.GsonHelper.object;
 import static de.otto.flummi.request.RequestConstants.APPL_JSON;
 import static de.otto.flummi.request.RequestConstants.CONTENT_TYPE;
 import static de.otto.flummi.response.SearchResponse.emptyResponse;
@@ -27,6 +35,8 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 public class SearchRequestBuilder implements RequestBuilder<SearchResponse> {
     private static final JsonObject EMPTY_JSON_OBJECT = new JsonObject();
+    // the size of a search without explicit size
+    private static final int DEFAULT_PAGE_SIZE = 10;
 
     private HttpClientWrapper httpClient;
     private final String[] indices;
@@ -42,6 +52,13 @@ public class SearchRequestBuilder implements RequestBuilder<SearchResponse> {
     private String scroll;
     private QueryBuilder postFilter;
     private List<AggregationBuilder> aggregations;
+    private Deadline deadline;
+    private RequestPriority priority;
+    private boolean deduplicate;
+    private TypeAdapter<?> sourceAdapter;
+    private String[] filterPaths;
+    private JsonArray searchAfter;
+    private String searchAfterTieBreaker;
 
     public static final Logger LOG = getLogger(SearchRequestBuilder.class);
 
@@ -112,88 +129,309 @@ public class SearchRequestBuilder implements RequestBuilder<SearchResponse> {
         return this;
     }
 
+    /**
+     * Overrides the filter_path of the request. By default only the fields read by Flummi are requested; without
+     * filter paths the whole response is requested.
+     */
+    public SearchRequestBuilder setFilterPath(String... filterPaths) {
+        this.filterPaths = filterPaths;
+        return this;
+    }
+
     public SearchRequestBuilder setTimeoutMillis(Integer timeoutMillis) {
         this.timeoutMillis = timeoutMillis;
         return this;
     }
 
+    /**
+     * Bounds the total time of this operation, see {@link Deadline}.
+     */
+    public SearchRequestBuilder setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Overrides the default priority of the request, see {@link RequestPriority}.
+     */
+    public SearchRequestBuilder setPriority(RequestPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Returns the hits after the hit with the given sort values, see {@link SearchHit#getSortValues()}.
+     */
+    public SearchRequestBuilder setSearchAfter(JsonArray sortValues) {
+        this.searchAfter = sortValues;
+        return this;
+    }
+
+    /**
+     * Pages through all hits with search_after instead of a scroll context, see {@link SearchAfterSearchHits}. The
+     * sort is completed with the tie-breaker field in ascending order, so it must be unique for every document. Use a
+     * keyword field with doc values that holds a copy of the id, not "_id": sorting on "_id" loads it into fielddata on
+     * the heap of the data nodes and is disallowed by newer Elasticsearch versions. Without a sort, hits are sorted by
+     * score first. The following pages request no aggregations. Paging always starts at the first hit, so it cannot be
+     * combined with {@link #setFrom(int)}.
+     *
+     * @param tieBreakerField the unique field or null to disable paging
+     */
+    public SearchRequestBuilder setSearchAfterPaging(String tieBreakerField) {
+        this.searchAfterTieBreaker = tieBreakerField;
+        return this;
+    }
+
+    /**
+     * Attaches this request to an identical search that is already in flight instead of sending it again. Identical
+     * means same indices, types, body, timeout and priority. The callers then share the same response object.
+     * Scrolling searches, searches with a deadline and searches that bind hits with a source adapter are never
+     * deduplicated.
+     */
+    public SearchRequestBuilder setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+        return this;
+    }
+
+    /**
+     * Binds the _source of the hits with the given adapter while parsing the response, without building a json tree
+     * first. The bound objects are returned by {@link SearchHit#getSource(Class)}. Also applies to the following
+     * pages of a scrolling search.
+     */
+    public SearchRequestBuilder setSourceAdapter(TypeAdapter<?> sourceAdapter) {
+        this.sourceAdapter = sourceAdapter;
+        return this;
+    }
+
+    /**
+     * Executes the search and binds the _source of the hits to the given type while parsing the response.
+     *
+     * @return the sources of all hits, for a scrolling search the following pages are fetched while streaming
+     */
+    public <T> Stream<T> execute(Class<T> sourceType) {
+        return execute(gson.getAdapter(sourceType));
+    }
+
+    /**
+     * Executes the search and binds the _source of the hits with the given adapter while parsing the response.
+     *
+     * @return the sources of all hits, for a scrolling search the following pages are fetched while streaming
+     */
+    public <T> Stream<T> execute(TypeAdapter<T> sourceAdapter) {
+        return setSourceAdapter(sourceAdapter).execute().getHits().stream()
+                .map(hit -> hit.getSource(sourceAdapter));
+    }
+
+    /**
+     * Executes the search and passes every hit to the consumer as soon as it is parsed, without collecting the hits.
+     * The response body is streamed: hits are parsed while the body is still being received, so neither the body
+     * nor the hits are held in memory as a whole. Searches with a consumer are never deduplicated, hedged or
+     * retried. For a scrolling search only the first page is passed, the next pages can be fetched with the scroll
+     * id of the returned response.
+     *
+     * @return the metadata and aggregations of the response, without hits
+     */
+    public SearchResponse execute(HitConsumer hitConsumer) {
+        JsonObject body = buildBody();
+        Deadline deadline = resolveDeadline();
+        try {
+            return executeStreaming(body, deadline, hitConsumer);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(body.toString(), e);
+        }
+    }
+
+    /**
+     * Like {@link #execute(HitConsumer)}, without blocking. Once the response arrived, the consumer is called on the
+     * response executor while the body is received.
+     */
+    public CompletableFuture<SearchResponse> executeAsync(HitConsumer hitConsumer) {
+        JsonObject body = buildBody();
+        Deadline deadline = resolveDeadline();
+        return RequestBuilderUtil.executeStreamingAsync(httpClient, () -> prepareRequest(body, deadline),
+                (response, responseBody) -> handleResponse(response, responseBody, deadline, hitConsumer));
+    }
+
+    private SearchResponse executeStreaming(JsonObject body, Deadline deadline, HitConsumer hitConsumer) throws InterruptedException, ExecutionException {
+        return RequestBuilderUtil.executeStreaming(prepareRequest(body, deadline),
+                (response, responseBody) -> handleResponse(response, responseBody, deadline, hitConsumer));
+    }
+
     @Override
     public SearchResponse execute() {
-        JsonObject body = new JsonObject();
-        try {
-            String url = RequestBuilderUtil.buildUrl(indices, types, "_search");
-            if (query != null) {
-                body.add("query", query);
+        if (isDeduplicated()) {
+            try {
+                return executeAsync().get();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                // throws the errors of the response like a search that is not deduplicated
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e);
             }
-            if (storedFields != null) {
-                body.add("stored_fields", storedFields);
-            }
-            if (sourceFilters != null) {
-                body.add("_source", sourceFilters);
-            }
-            if (from != null) {
-                body.add("from", new JsonPrimitive(from));
-            }
-            if (size != null) {
-                body.add("size", new JsonPrimitive(size));
-            }
-            if (sorts != null) {
-                body.add("sort", sorts);
-            }
-            if (postFilter != null) {
-                body.add("post_filter", postFilter.build());
-            }
-            if (aggregations != null) {
-                JsonObject jsonObject = aggregations
-                        .stream()
-                        .collect(toJsonObject());
+        }
+        JsonObject body = buildBody();
+        Deadline deadline = resolveDeadline();
+        try {
+            return handleResponse(prepareRequest(body, deadline).execute().get(), deadline);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(body.toString(), e);
+        }
+    }
 
-                body.add("aggregations", jsonObject);
-            }
-            BoundRequestBuilder boundRequestBuilder = httpClient
-                    .preparePost(url)
-                    .setCharset(Charset.forName("UTF-8"));
-            if (timeoutMillis != null) {
-                boundRequestBuilder.setRequestTimeout(timeoutMillis);
-            }
-            if (scroll != null) {
-                boundRequestBuilder.addQueryParam("scroll", scroll);
-            }
+    @Override
+    public CompletableFuture<SearchResponse> executeAsync() {
+        JsonObject body = buildBody();
+        Deadline deadline = resolveDeadline();
+        Supplier<CompletableFuture<SearchResponse>> send = () -> RequestBuilderUtil.executeAsync(httpClient,
+                () -> prepareRequest(body, deadline), response -> handleResponse(response, deadline));
+        return isDeduplicated() ? httpClient.getSearchesInFlight().execute(deduplicationKey(body), send) : send.get();
+    }
+
+    private boolean isDeduplicated() {
+        return deduplicate && scroll == null && searchAfterTieBreaker == null && deadline == null && sourceAdapter == null;
+    }
+
+    private String deduplicationKey(JsonObject body) {
+        return RequestBuilderUtil.buildUrl(indices, types, "_search")
+                + "|" + filterPath()
+                + "|" + timeoutMillis
+                + "|" + priority
+                + "|" + gson.toJson(body);
+    }
+
+    // a paged search is bounded as a whole, other requests get the default deadline from the http client
+    private Deadline resolveDeadline() {
+        boolean paged = scroll != null || searchAfterTieBreaker != null;
+        return this.deadline != null || !paged ? this.deadline : httpClient.defaultDeadline();
+    }
+
+    private JsonObject buildBody() {
+        JsonObject body = new JsonObject();
+        if (query != null) {
+            body.add("query", query);
+        }
+        if (storedFields != null) {
+            body.add("stored_fields", storedFields);
+        }
+        if (sourceFilters != null) {
+            body.add("_source", sourceFilters);
+        }
+        if (from != null && searchAfterTieBreaker != null && from > 0) {
+            throw new IllegalStateException("search_after paging starts at the first hit, it cannot be combined with from " + from);
+        }
+        // Elasticsearch rejects search_after requests with a from other than 0
+        if (from != null && searchAfterTieBreaker == null) {
+            body.add("from", new JsonPrimitive(from));
+        }
+        if (size != null) {
+            body.add("size", new JsonPrimitive(size));
+        }
+        JsonArray sorts = searchAfterTieBreaker != null ? sortsWithTieBreaker() : this.sorts;
+        if (sorts != null) {
+            body.add("sort", sorts);
+        }
+        if (searchAfter != null) {
+            body.add("search_after", searchAfter);
+        }
+        if (postFilter != null) {
+            body.add("post_filter", postFilter.build());
+        }
+        if (aggregations != null) {
+            JsonObject jsonObject = aggregations
+                    .stream()
+                    .collect(toJsonObject());
 
-            Response response = boundRequestBuilder.setBody(gson.toJson(body))
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute()
-                    .get();
+            body.add("aggregations", jsonObject);
+        }
+        return body;
+    }
 
-            //Did not find an entry
-            if (response.getStatusCode() == 404) {
-                return emptyResponse();
+    private JsonArray sortsWithTieBreaker() {
+        JsonArray sorts = new JsonArray();
+        if (this.sorts != null) {
+            sorts.addAll(this.sorts);
+        } else {
+            sorts.add(object("_score", "desc"));
+        }
+        for (JsonElement sort : sorts) {
+            if (sort.isJsonObject() ? sort.getAsJsonObject().has(searchAfterTieBreaker) : sort.getAsString().equals(searchAfterTieBreaker)) {
+                return sorts;
             }
+        }
+        sorts.add(object(searchAfterTieBreaker, "asc"));
+        return sorts;
+    }
 
-            //Server Error
+    private CompletableFuture<List<SearchHit>> fetchPageAfter(JsonArray sortValues, Deadline deadline) {
+        JsonObject body = buildBody();
+        body.remove("aggregations");
+        body.add("search_after", sortValues);
+        return RequestBuilderUtil.executeAsync(httpClient, () -> prepareRequest(body, deadline), response -> {
             if (response.getStatusCode() >= 300) {
                 throw toHttpServerErrorException(response);
             }
+            SearchResponse page = new SearchResponseParser(null, null, httpClient, deadline, sourceAdapter).parse(responseBodyReader(response));
+            return ((SimpleSearchHits) page.getHits()).getHits();
+        });
+    }
+
+    private BoundRequestBuilder prepareRequest(JsonObject body, Deadline deadline) {
+        String url = RequestBuilderUtil.buildUrl(indices, types, "_search");
+        BoundRequestBuilder boundRequestBuilder = httpClient
+                .preparePost(url)
+                .setCharset(Charset.forName("UTF-8"));
+        if (timeoutMillis != null) {
+            boundRequestBuilder.setRequestTimeout(timeoutMillis);
+        }
+        if (scroll != null) {
+            boundRequestBuilder.addQueryParam("scroll", scroll);
+        }
+        RequestBuilderUtil.applyFilterPath(boundRequestBuilder, filterPath());
+        if (deadline != null) {
+            deadline.applyTo(boundRequestBuilder);
+        }
+        if (priority != null) {
+            priority.applyTo(boundRequestBuilder);
+        }
+        return boundRequestBuilder.setBody(gson.toJson(body))
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
 
-            JsonObject jsonResponse = gson.fromJson(response.getResponseBody(), JsonObject.class);
-            SearchResponse.Builder searchResponse = parseResponse(jsonResponse, scroll, httpClient);
+    private String filterPath() {
+        return RequestBuilderUtil.resolveFilterPath(filterPaths, SearchResponseParser.filterPath(aggregations));
+    }
 
-            JsonElement aggregationsJsonElement = jsonResponse.get("aggregations");
-            if (aggregationsJsonElement != null) {
-                final JsonObject aggregationsJsonObject = aggregationsJsonElement.getAsJsonObject();
+    private SearchResponse handleResponse(Response response, Deadline deadline) {
+        return handleResponse(response, responseBodyReader(response), deadline, null);
+    }
 
-                aggregations.forEach(a -> {
-                    JsonElement aggregationElement = aggregationsJsonObject.get(a.getName());
-                    if (aggregationElement != null) {
-                        AggregationResult aggregation = a.parseResponse(aggregationElement.getAsJsonObject());
-                        searchResponse.addAggregation(a.getName(), aggregation);
-                    }
-                });
+    private SearchResponse handleResponse(Response response, Reader body, Deadline deadline, HitConsumer hitConsumer) {
+        SearchResponse searchResponse;
+        //Did not find an entry
+        if (response.getStatusCode() == 404) {
+            searchResponse = emptyResponse();
+        } else if (response.getStatusCode() >= 300) {
+            //Server Error
+            throw toHttpServerErrorException(response, body);
+        } else {
+            searchResponse = new SearchResponseParser(aggregations, scroll, httpClient, deadline, sourceAdapter)
+                    .parse(body, hitConsumer);
+            if (searchAfterTieBreaker != null && hitConsumer == null) {
+                searchResponse = withSearchAfterHits(searchResponse, deadline);
             }
-            return searchResponse.build();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException(body.toString(), e);
         }
+        if (hitConsumer != null) {
+            hitConsumer.onComplete(searchResponse);
+        }
+        return searchResponse;
+    }
+
+    private SearchResponse withSearchAfterHits(SearchResponse searchResponse, Deadline deadline) {
+        SearchHits hits = searchResponse.getHits();
+        SearchAfterSearchHits searchAfterHits = new SearchAfterSearchHits(hits.getTotalHits(), hits.getMaxScore(),
+                ((SimpleSearchHits) hits).getHits(), size != null ? size : DEFAULT_PAGE_SIZE,
+                sortValues -> fetchPageAfter(sortValues, deadline));
+        return new SearchResponse(searchResponse.getTookInMillis(), searchResponse.getScrollId(), searchAfterHits, searchResponse.getAggregations());
     }
 
     private static Collector<AggregationBuilder, JsonObject, JsonObject> toJsonObject() {
@@ -203,6 +441,10 @@ public class SearchRequestBuilder implements RequestBuilder<SearchResponse> {
     }
 
     public static SearchResponse.Builder parseResponse(JsonObject jsonObject, String scroll, HttpClientWrapper client) {
+        return parseResponse(jsonObject, scroll, client, null);
+    }
+
+    public static SearchResponse.Builder parseResponse(JsonObject jsonObject, String scroll, HttpClientWrapper client, Deadline deadline) {
         SearchResponse.Builder searchResponse = SearchResponse.builder();
         searchResponse.setTookInMillis(jsonObject.get("took").getAsLong());
         JsonObject hits = jsonObject.get("hits").getAsJsonObject();
@@ -236,7 +478,7 @@ public class SearchRequestBuilder implements RequestBuilder<SearchResponse> {
             searchHitsCurrentPage.add(hit);
         }
         if (scroll != null && scroll_id != null) {
-            searchResponse.setHits(new ScrollingSearchHits(totalHits, maxScore, scroll_id.getAsString(), scroll, searchHitsCurrentPage, client));
+            searchResponse.setHits(new ScrollingSearchHits(totalHits, maxScore, scroll_id.getAsString(), scroll, searchHitsCurrentPage, client, deadline));
         } else {
             searchResponse.setHits(new SimpleSearchHits(totalHits, maxScore, searchHitsCurrentPage));
         }
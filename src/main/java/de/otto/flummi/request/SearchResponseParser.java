@@ -0,0 +1,285 @@
+package de.otto.flummi.request;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import de.otto.flummi.aggregations.AggregationBuilder;
+import de.otto.flummi.response.HitConsumer;
+import de.otto.flummi.response.ScrollingSearchHits;
+import de.otto.flummi.response.SearchHit;
+import de.otto.flummi.response.SearchResponse;
+import de.otto.flummi.response.SimpleSearchHits;
+import de.otto.flummi.util.Deadline;
+import de.otto.flummi.util.DeadlineExceededException;
+import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.StringDictionary;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Parses search and scroll responses in one pass while reading the response stream. The _source of every hit is
+ * either bound by the source adapter while reading, or kept as UTF-8 bytes and only parsed when it is accessed.
+ * Only the fields of every hit and the aggregations are built as json trees, the response as a whole is never held
+ * in memory.
+ */
+class SearchResponseParser {
+    private static final JsonObject EMPTY_JSON_OBJECT = new JsonObject();
+    private static final String FILTER_PATH = "took,timed_out,_shards.failed,_scroll_id,hits.total,hits.max_score,hits.hits._id,hits.hits._score,hits.hits._source,hits.hits.fields,hits.hits.sort";
+
+    private final JsonParser jsonParser = new JsonParser();
+    private final List<AggregationBuilder> aggregations;
+    private final String scroll;
+    private final HttpClientWrapper client;
+    private final Deadline deadline;
+    private final TypeAdapter<Object> sourceAdapter;
+    private final StringDictionary dictionary;
+
+    private long totalHits;
+    private Float maxScore;
+    private String scrollId;
+    private final List<SearchHit> hits = new ArrayList<>();
+    private HitConsumer hitConsumer;
+
+    /**
+     * @param aggregations the aggregations of the request, or null
+     * @param scroll        the scroll of the request, or null for a response that is not scrolled
+     * @param sourceAdapter binds the _source of the hits, or null to keep the _source as bytes
+     */
+    @SuppressWarnings("unchecked")
+    SearchResponseParser(List<AggregationBuilder> aggregations, String scroll, HttpClientWrapper client, Deadline deadline, TypeAdapter<?> sourceAdapter) {
+        this.aggregations = aggregations;
+        this.scroll = scroll;
+        this.client = client;
+        this.deadline = deadline;
+        this.sourceAdapter = (TypeAdapter<Object>) sourceAdapter;
+        this.dictionary = client != null ? client.getStringDictionary() : null;
+    }
+
+    /**
+     * @return the filter_path of the fields read by the parser, including the given aggregations
+     */
+    static String filterPath(List<AggregationBuilder> aggregations) {
+        if (aggregations == null || aggregations.isEmpty()) {
+            return FILTER_PATH;
+        }
+        StringBuilder filterPath = new StringBuilder(FILTER_PATH);
+        for (AggregationBuilder aggregation : aggregations) {
+            // names with filter path syntax cannot be filtered by name
+            if (aggregation.getName().matches(".*[.*,].*")) {
+                return FILTER_PATH + ",aggregations";
+            }
+            filterPath.append(",aggregations.").append(aggregation.getName());
+        }
+        return filterPath.toString();
+    }
+
+    SearchResponse parse(Reader body) {
+        return parse(body, null);
+    }
+
+    /**
+     * @param hitConsumer receives every hit as soon as it is parsed instead of the hits being collected in the
+     *                    response, or null
+     */
+    SearchResponse parse(Reader body, HitConsumer hitConsumer) {
+        this.hitConsumer = hitConsumer;
+        SearchResponse.Builder searchResponse = SearchResponse.builder();
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "took":
+                        searchResponse.setTookInMillis(reader.nextLong());
+                        break;
+                    case "timed_out":
+                        // the timeout is only sent to Elasticsearch for a deadline, the partial hits must not be used
+                        if (reader.nextBoolean()) {
+                            throw new DeadlineExceededException("search timed out on Elasticsearch, the results are incomplete");
+                        }
+                        break;
+                    case "_shards":
+                        searchResponse.setFailedShards(readFailedShards(reader));
+                        break;
+                    case "_scroll_id":
+                        scrollId = reader.nextString();
+                        break;
+                    case "hits":
+                        readHits(reader);
+                        break;
+                    case "aggregations":
+                        readAggregations(reader, searchResponse);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (scrollId != null) {
+            searchResponse.setScrollId(scrollId);
+        }
+        if (hitConsumer != null) {
+            searchResponse.setHits(new SimpleSearchHits(totalHits, maxScore, emptyList()));
+        } else if (scroll != null && scrollId != null) {
+            searchResponse.setHits(new ScrollingSearchHits(totalHits, maxScore, scrollId, scroll, hits, client, deadline, sourceAdapter));
+        } else {
+            searchResponse.setHits(new SimpleSearchHits(totalHits, maxScore, hits));
+        }
+        return searchResponse.build();
+    }
+
+    private void readHits(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "total":
+                    totalHits = readTotal(reader);
+                    break;
+                case "max_score":
+                    maxScore = readFloat(reader);
+                    break;
+                case "hits":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (hitConsumer != null) {
+                            hitConsumer.onHit(readHit(reader));
+                        } else {
+                            hits.add(readHit(reader));
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static int readFailedShards(JsonReader reader) throws IOException {
+        int failed = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("failed".equals(reader.nextName())) {
+                failed = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return failed;
+    }
+
+    // Elasticsearch 7 reports the total as object with value and relation, the value is only used if it is exact
+    private static long readTotal(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return reader.nextLong();
+        }
+        long value = 0;
+        String relation = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "value":
+                    value = reader.nextLong();
+                    break;
+                case "relation":
+                    relation = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return "eq".equals(relation) ? value : 0;
+    }
+
+    private SearchHit readHit(JsonReader reader) throws IOException {
+        String id = null;
+        Float score = null;
+        byte[] source = null;
+        Object boundSource = null;
+        JsonObject fields = EMPTY_JSON_OBJECT;
+        JsonArray sortValues = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "_id":
+                    id = reader.nextString();
+                    break;
+                case "_score":
+                    score = readFloat(reader);
+                    break;
+                case "_source":
+                    if (sourceAdapter != null) {
+                        boundSource = sourceAdapter.read(reader);
+                    } else {
+                        source = JsonStreams.toUtf8Bytes(reader);
+                    }
+                    break;
+                case "fields":
+                    fields = readTree(reader).getAsJsonObject();
+                    break;
+                case "sort":
+                    sortValues = readTree(reader).getAsJsonArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (boundSource != null) {
+            return SearchHit.withBoundSource(id, boundSource, sourceAdapter, fields, score, sortValues);
+        }
+        return SearchHit.withRawSource(id, source, dictionary, fields, score, sortValues);
+    }
+
+    private void readAggregations(JsonReader reader, SearchResponse.Builder searchResponse) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            AggregationBuilder aggregation = findAggregation(name);
+            if (aggregation != null) {
+                searchResponse.addAggregation(name, aggregation.parseResponse(readTree(reader).getAsJsonObject()));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private JsonElement readTree(JsonReader reader) throws IOException {
+        return dictionary != null ? dictionary.read(reader) : jsonParser.parse(reader);
+    }
+
+    private AggregationBuilder findAggregation(String name) {
+        if (aggregations != null) {
+            for (AggregationBuilder aggregation : aggregations) {
+                if (aggregation.getName().equals(name)) {
+                    return aggregation;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Float readFloat(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return (float) reader.nextDouble();
+    }
+}
@@ -2,17 +2,25 @@ package de.otto.flummi.request;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import de.otto.flummi.RequestBuilderUtil;
+import de.otto.flummi.response.HitConsumer;
+import de.otto.flummi.response.SearchHit;
 import de.otto.flummi.response.SearchResponse;
+import de.otto.flummi.util.Deadline;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
 
+import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import static de.otto.flummi.RequestBuilderUtil.responseBodyReader;
 import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
 import static de.otto.flummi.request.GsonHelper.object;
 import static de.otto.flummi.request.RequestConstants.APPL_JSON;
 import static de.otto.flummi.request.RequestConstants.CONTENT_TYPE;
-import static de.otto.flummi.request.SearchRequestBuilder.parseResponse;
 import static de.otto.flummi.response.SearchResponse.emptyResponse;
 
 public class SearchScrollRequestBuilder implements RequestBuilder<SearchResponse> {
@@ -20,6 +28,9 @@ public class SearchScrollRequestBuilder implements RequestBuilder<SearchResponse
     private HttpClientWrapper httpClient;
     private String scrollId;
     private String scroll;
+    private Deadline deadline;
+    private TypeAdapter<?> sourceAdapter;
+    private String[] filterPaths;
 
     public SearchScrollRequestBuilder(HttpClientWrapper httpClient) {
         this.httpClient = httpClient;
@@ -36,36 +47,94 @@ public class SearchScrollRequestBuilder implements RequestBuilder<SearchResponse
         return this;
     }
 
+    /**
+     * Bounds the total time of this operation, see {@link Deadline}.
+     */
+    public SearchScrollRequestBuilder setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Binds the _source of the hits with the given adapter while parsing the response, see {@link SearchHit#getSource(Class)}.
+     */
+    public SearchScrollRequestBuilder setSourceAdapter(TypeAdapter<?> sourceAdapter) {
+        this.sourceAdapter = sourceAdapter;
+        return this;
+    }
+
+    /**
+     * Overrides the filter_path of the request. By default only the fields read by Flummi are requested; without
+     * filter paths the whole response is requested.
+     */
+    public SearchScrollRequestBuilder setFilterPath(String... filterPaths) {
+        this.filterPaths = filterPaths;
+        return this;
+    }
+
     @Override
     public SearchResponse execute() {
+        try {
+            return handleResponse(prepareRequest().execute().get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Fetches the next page and passes every hit to the consumer as soon as it is parsed, without collecting the hits.
+     * The response body is streamed, like in {@link SearchRequestBuilder#execute(HitConsumer)}.
+     *
+     * @return the metadata of the response, without hits
+     */
+    public SearchResponse execute(HitConsumer hitConsumer) {
+        try {
+            return RequestBuilderUtil.executeStreaming(prepareRequest(),
+                    (response, body) -> handleResponse(response, body, hitConsumer));
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<SearchResponse> executeAsync() {
+        return RequestBuilderUtil.executeAsync(httpClient, this::prepareRequest, this::handleResponse);
+    }
+
+    private BoundRequestBuilder prepareRequest() {
         JsonObject requestBody = object(
                 "scroll_id", scrollId,
                 "scroll", scroll
         );
-        try {
-            Response response = httpClient.preparePost("/_search/scroll")
-                    .setBody(gson.toJson(requestBody))
-                    .addHeader(CONTENT_TYPE, APPL_JSON)
-                    .execute()
-                    .get();
+        BoundRequestBuilder boundRequestBuilder = httpClient.preparePost("/_search/scroll");
+        if (deadline != null) {
+            deadline.applyTo(boundRequestBuilder);
+        }
+        RequestBuilderUtil.applyFilterPath(boundRequestBuilder, RequestBuilderUtil.resolveFilterPath(filterPaths, SearchResponseParser.filterPath(null)));
+        return boundRequestBuilder
+                .setBody(gson.toJson(requestBody))
+                .addHeader(CONTENT_TYPE, APPL_JSON);
+    }
 
-            //Did not find an entry
-            if (response.getStatusCode() == 404) {
-                return emptyResponse();
-            }
+    private SearchResponse handleResponse(Response response) {
+        return handleResponse(response, responseBodyReader(response), null);
+    }
 
+    private SearchResponse handleResponse(Response response, Reader body, HitConsumer hitConsumer) {
+        SearchResponse searchResponse;
+        //Did not find an entry
+        if (response.getStatusCode() == 404) {
+            searchResponse = emptyResponse();
+        } else if (response.getStatusCode() >= 300) {
             //Server Error
-            if (response.getStatusCode() >= 300) {
-                throw toHttpServerErrorException(response);
-            }
-
-            JsonObject jsonResponse = gson.fromJson(response.getResponseBody(), JsonObject.class);
-            SearchResponse.Builder searchResponse = parseResponse(jsonResponse, null, null);
-
-            return searchResponse.build();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException(e);
+            throw toHttpServerErrorException(response, body);
+        } else {
+            searchResponse = new SearchResponseParser(null, null, httpClient, null, sourceAdapter)
+                    .parse(body, hitConsumer);
         }
-
+        if (hitConsumer != null) {
+            hitConsumer.onComplete(searchResponse);
+        }
+        return searchResponse;
     }
 }
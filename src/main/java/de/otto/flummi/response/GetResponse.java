@@ -1,27 +1,86 @@
 package de.otto.flummi.response;
 
 import com.google.gson.JsonObject;
+import de.otto.flummi.util.StringDictionary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 public class GetResponse {
     private final boolean exists;
-    private final JsonObject source;
+    private final byte[] rawSource;
+    private final StringDictionary dictionary;
+    private volatile JsonObject source;
     private final String id;
 
     public GetResponse(boolean exists, JsonObject source, String id) {
+        this(exists, null, null, source, id);
+    }
+
+    GetResponse(boolean exists, byte[] rawSource, StringDictionary dictionary, JsonObject source, String id) {
         this.exists = exists;
+        this.rawSource = rawSource;
+        this.dictionary = dictionary;
         this.source = source;
         this.id = id;
     }
 
+    /**
+     * Creates a response for an existing document that keeps the _source as UTF-8 encoded json and parses it on the
+     * first call of {@link #getSource()}.
+     */
+    public static GetResponse withRawSource(byte[] rawSource, String id) {
+        return withRawSource(rawSource, null, id);
+    }
+
+    /**
+     * Like {@link #withRawSource(byte[], String)}, sharing the field names of the parsed source through the dictionary.
+     */
+    public static GetResponse withRawSource(byte[] rawSource, StringDictionary dictionary, String id) {
+        return new GetResponse(true, rawSource, dictionary, null, id);
+    }
+
     public boolean isExists() {
         return exists;
     }
 
     public JsonObject getSource() {
+        JsonObject source = this.source;
+        if (source == null && rawSource != null) {
+            source = SourceBytes.parse(rawSource, dictionary);
+            this.source = source;
+        }
         return source;
     }
 
+    /**
+     * @return a read-only buffer with the _source as UTF-8 encoded json, or null if the document has no source
+     */
+    public ByteBuffer getSourceBytes() {
+        return SourceBytes.toBuffer(sourceBytes());
+    }
+
+    /**
+     * Writes the _source as UTF-8 encoded json to the stream, without parsing it.
+     */
+    public void writeSourceTo(OutputStream out) throws IOException {
+        SourceBytes.write(sourceBytes(), out);
+    }
+
+    /**
+     * Writes the _source as UTF-8 encoded json to the channel, without parsing it.
+     */
+    public void writeSourceTo(WritableByteChannel channel) throws IOException {
+        SourceBytes.write(sourceBytes(), channel);
+    }
+
     public String getId() {
         return id;
     }
+
+    private byte[] sourceBytes() {
+        return SourceBytes.bytes(rawSource, source);
+    }
 }
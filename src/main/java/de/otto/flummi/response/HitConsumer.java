@@ -0,0 +1,18 @@
+package de.otto.flummi.response;
+
+/**
+ * Receives the hits of a search one by one while the response is parsed, so that the hits are never collected in a
+ * list.
+ */
+@FunctionalInterface
+public interface HitConsumer {
+
+    void onHit(SearchHit hit);
+
+    /**
+     * Called after the last hit with the metadata and aggregations of the response. The hits of the response are
+     * empty, only the total hits and the max score are set.
+     */
+    default void onComplete(SearchResponse response) {
+    }
+}
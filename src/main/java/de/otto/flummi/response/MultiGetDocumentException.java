@@ -0,0 +1,26 @@
+package de.otto.flummi.response;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Thrown if a document of a multi-get could not be read, e.g. because no copy of its shard was available.
+ */
+public class MultiGetDocumentException extends RuntimeException {
+
+    private final String id;
+    private final JsonObject error;
+
+    public MultiGetDocumentException(String id, JsonObject error) {
+        super("Failed to get document " + id + ": " + error);
+        this.id = id;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public JsonObject getError() {
+        return error;
+    }
+}
@@ -1,17 +1,69 @@
 package de.otto.flummi.response;
 
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import de.otto.flummi.util.StringDictionary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 public class MultiGetResponseDocument {
 
     private final String id;
     private final boolean found;
-    private final JsonObject source;
+    private final byte[] rawSource;
+    private final StringDictionary dictionary;
+    private final Object boundSource;
+    private final TypeAdapter<Object> sourceAdapter;
+    private final JsonObject error;
+    private volatile JsonObject source;
 
     public MultiGetResponseDocument(String id, boolean found, JsonObject source) {
+        this(id, found, null, null, null, null, source, null);
+    }
+
+    private MultiGetResponseDocument(String id, boolean found, byte[] rawSource, StringDictionary dictionary, Object boundSource, TypeAdapter<Object> sourceAdapter, JsonObject source, JsonObject error) {
         this.id = id;
         this.found = found;
+        this.rawSource = rawSource;
+        this.dictionary = dictionary;
+        this.boundSource = boundSource;
+        this.sourceAdapter = sourceAdapter;
         this.source = source;
+        this.error = error;
+    }
+
+    /**
+     * Creates a found document that keeps the _source as UTF-8 encoded json and parses it on the first call of
+     * {@link #getSource()}.
+     */
+    public static MultiGetResponseDocument withRawSource(String id, byte[] rawSource) {
+        return withRawSource(id, rawSource, null);
+    }
+
+    /**
+     * Like {@link #withRawSource(String, byte[])}, sharing the field names of the parsed source through the dictionary.
+     */
+    public static MultiGetResponseDocument withRawSource(String id, byte[] rawSource, StringDictionary dictionary) {
+        return new MultiGetResponseDocument(id, true, rawSource, dictionary, null, null, null, null);
+    }
+
+    /**
+     * Creates a found document whose _source was bound to an object by the sourceAdapter while parsing the response.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> MultiGetResponseDocument withBoundSource(String id, T boundSource, TypeAdapter<T> sourceAdapter) {
+        return new MultiGetResponseDocument(id, true, null, null, boundSource, (TypeAdapter<Object>) sourceAdapter, null, null);
+    }
+
+    /**
+     * Creates a document that could not be read, e.g. because no copy of its shard was available.
+     */
+    public static MultiGetResponseDocument withError(String id, JsonObject error) {
+        return new MultiGetResponseDocument(id, false, null, null, null, null, new JsonObject(), error);
     }
 
     public String getId() {
@@ -22,10 +74,78 @@ public class MultiGetResponseDocument {
         return found;
     }
 
+    /**
+     * @return the error Elasticsearch reported instead of the document, or null. A document with an error is not
+     * found, but it may exist.
+     */
+    public JsonObject getError() {
+        return error;
+    }
+
     public JsonObject getSource() {
+        JsonObject source = this.source;
+        if (source == null && rawSource != null) {
+            source = SourceBytes.parse(rawSource, dictionary);
+            this.source = source;
+        } else if (source == null && boundSource != null) {
+            source = sourceAdapter.toJsonTree(boundSource).getAsJsonObject();
+            this.source = source;
+        }
         return source;
     }
 
+    /**
+     * @return the _source bound with the given adapter. If the source was already bound with this adapter while
+     * parsing the response, that object is returned.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSource(TypeAdapter<T> adapter) {
+        if (boundSource != null && sourceAdapter == adapter) {
+            return (T) boundSource;
+        }
+        try {
+            if (rawSource != null) {
+                return adapter.fromJson(SourceBytes.reader(rawSource));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        JsonObject source = getSource();
+        return source != null ? adapter.fromJsonTree(source) : null;
+    }
+
+    /**
+     * @return a read-only buffer with the _source as UTF-8 encoded json, or null if the document has no source
+     */
+    public ByteBuffer getSourceBytes() {
+        return SourceBytes.toBuffer(sourceBytes());
+    }
+
+    /**
+     * Writes the _source as UTF-8 encoded json to the stream, without parsing it.
+     */
+    public void writeSourceTo(OutputStream out) throws IOException {
+        SourceBytes.write(sourceBytes(), out);
+    }
+
+    /**
+     * Writes the _source as UTF-8 encoded json to the channel, without parsing it.
+     */
+    public void writeSourceTo(WritableByteChannel channel) throws IOException {
+        SourceBytes.write(sourceBytes(), channel);
+    }
+
+    /**
+     * @return the response of a single get of this document, sharing its raw source
+     */
+    public GetResponse toGetResponse() {
+        return new GetResponse(found, rawSource, dictionary, rawSource != null ? null : getSource(), id);
+    }
+
+    private byte[] sourceBytes() {
+        return SourceBytes.bytes(rawSource, rawSource != null ? null : getSource());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -35,7 +155,8 @@ public class MultiGetResponseDocument {
 
         if (found != that.found) return false;
         if (id != null ? !id.equals(that.id) : that.id != null) return false;
-        return source != null ? source.equals(that.source) : that.source == null;
+        if (error != null ? !error.equals(that.error) : that.error != null) return false;
+        return getSource() != null ? getSource().equals(that.getSource()) : that.getSource() == null;
 
     }
 
@@ -43,7 +164,8 @@ public class MultiGetResponseDocument {
     public int hashCode() {
         int result = id != null ? id.hashCode() : 0;
         result = 31 * result + (found ? 1 : 0);
-        result = 31 * result + (source != null ? source.hashCode() : 0);
+        result = 31 * result + (error != null ? error.hashCode() : 0);
+        result = 31 * result + (getSource() != null ? getSource().hashCode() : 0);
         return result;
     }
 
@@ -52,7 +174,8 @@ public class MultiGetResponseDocument {
         return "MultiGetResponseDocument{" +
                 "id='" + id + '\'' +
                 ", found=" + found +
-                ", source=" + source +
+                (error != null ? ", error=" + error : "") +
+                ", source=" + getSource() +
                 '}';
     }
 }
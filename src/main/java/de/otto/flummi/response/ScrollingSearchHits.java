@@ -1,12 +1,22 @@
 package de.otto.flummi.response;
 
+import com.google.gson.TypeAdapter;
 import de.otto.flummi.request.SearchScrollRequestBuilder;
+import de.otto.flummi.util.Deadline;
 import de.otto.flummi.util.HttpClientWrapper;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -15,7 +25,8 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Auto-scrolling implementation of SearchHits. Contains a page of search results
- * and automatically fetches more pages from the server as you iterate or stream over the search result.
+ * and automatically fetches more pages from the server as you iterate or stream over the search result,
+ * or as the subscriber of {@link #publisher()} requests more hits.
  */
 public class ScrollingSearchHits implements SearchHits {
     private final long totalHits;
@@ -23,18 +34,37 @@ public class ScrollingSearchHits implements SearchHits {
     private final String scrollId;
     private final String scroll;
     private final HttpClientWrapper client;
+    private final Deadline deadline;
+    private final TypeAdapter<?> sourceAdapter;
     private List<SearchHit> hitsCurrentPage;
     private boolean dirty;
     public static final Logger LOG = getLogger(ScrollingSearchHits.class);
 
 
     public ScrollingSearchHits(long totalHits, Float maxScore, String scrollId, String scroll, List<SearchHit> hitsCurrentPage, HttpClientWrapper client) {
+        this(totalHits, maxScore, scrollId, scroll, hitsCurrentPage, client, null);
+    }
+
+    /**
+     * @param deadline bounds the time of fetching all pages, or null for no deadline
+     */
+    public ScrollingSearchHits(long totalHits, Float maxScore, String scrollId, String scroll, List<SearchHit> hitsCurrentPage, HttpClientWrapper client, Deadline deadline) {
+        this(totalHits, maxScore, scrollId, scroll, hitsCurrentPage, client, deadline, null);
+    }
+
+    /**
+     * @param deadline      bounds the time of fetching all pages, or null for no deadline
+     * @param sourceAdapter binds the _source of the hits of the following pages, or null
+     */
+    public ScrollingSearchHits(long totalHits, Float maxScore, String scrollId, String scroll, List<SearchHit> hitsCurrentPage, HttpClientWrapper client, Deadline deadline, TypeAdapter<?> sourceAdapter) {
         this.totalHits = totalHits;
         this.maxScore = maxScore;
         this.scrollId = scrollId;
         this.scroll = scroll;
         this.hitsCurrentPage = hitsCurrentPage;
         this.client = client;
+        this.deadline = deadline;
+        this.sourceAdapter = sourceAdapter;
     }
 
 
@@ -89,6 +119,8 @@ public class ScrollingSearchHits implements SearchHits {
         SearchResponse response = new SearchScrollRequestBuilder(client)
                 .setScroll(scroll)
                 .setScrollId(scrollId)
+                .setDeadline(deadline)
+                .setSourceAdapter(sourceAdapter)
                 .execute();
         this.hitsCurrentPage = ((SimpleSearchHits)response.getHits()).getHits();
     }
@@ -137,4 +169,124 @@ public class ScrollingSearchHits implements SearchHits {
     public Stream<SearchHit> stream() {
         return StreamSupport.stream(spliterator(), false);
     }
+
+    /**
+     * Publishes the hits to a single subscriber without blocking. The next page is fetched asynchronously and only
+     * when the subscriber has requested more hits than are left on the current page, so a slow subscriber slows
+     * down scrolling instead of pages being buffered.
+     */
+    public Publisher<SearchHit> publisher() {
+        assertNotDirty();
+        dirty = true;
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return subscriber -> {
+            Objects.requireNonNull(subscriber);
+            if (!subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Result was already published to a subscriber"));
+                return;
+            }
+            HitsSubscription subscription = new HitsSubscription(subscriber);
+            subscriber.onSubscribe(subscription);
+            subscription.drain();
+        };
+    }
+
+    private class HitsSubscription implements Subscription {
+        private final Subscriber<? super SearchHit> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // serializes the signals to the subscriber, see drain()
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean fetching;
+        private volatile Throwable error;
+        private List<SearchHit> page = hitsCurrentPage;
+        private int pageIdx;
+        private String currentScrollId = scrollId;
+        private boolean done;
+
+        private HitsSubscription(Subscriber<? super SearchHit> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested number of hits must be positive, was " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void drain() {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done && !cancelled && !fetching) {
+                    emit();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (error != null) {
+                done = true;
+                subscriber.onError(error);
+                return;
+            }
+            while (pageIdx < page.size() && demand.get() > 0 && !cancelled) {
+                subscriber.onNext(page.get(pageIdx++));
+                demand.decrementAndGet();
+            }
+            if (pageIdx < page.size() || cancelled) {
+                return;
+            }
+            if (page.isEmpty()) {
+                done = true;
+                subscriber.onComplete();
+            } else if (demand.get() > 0) {
+                fetchNextPage();
+            }
+        }
+
+        private void fetchNextPage() {
+            fetching = true;
+            new SearchScrollRequestBuilder(client)
+                    .setScroll(scroll)
+                    .setScrollId(currentScrollId)
+                    .setDeadline(deadline)
+                    .setSourceAdapter(sourceAdapter)
+                    .executeAsync()
+                    .whenComplete((response, e) -> {
+                        if (e != null) {
+                            error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        } else {
+                            if (response.getScrollId() != null) {
+                                currentScrollId = response.getScrollId();
+                            }
+                            page = ((SimpleSearchHits) response.getHits()).getHits();
+                            pageIdx = 0;
+                        }
+                        fetching = false;
+                        drain();
+                    });
+        }
+    }
 }
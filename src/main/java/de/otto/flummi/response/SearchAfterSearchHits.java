@@ -0,0 +1,148 @@
+package de.otto.flummi.response;
+
+import com.google.gson.JsonArray;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of SearchHits that pages with search_after instead of a scroll context, so no resources are held
+ * on the cluster between pages. Each page is requested after the sort values of the last hit of the previous page.
+ * While a page is iterated, the next page is already fetched in the background.
+ */
+public class SearchAfterSearchHits implements SearchHits {
+    private final long totalHits;
+    private final Float maxScore;
+    private final int pageSize;
+    private final Function<JsonArray, CompletableFuture<List<SearchHit>>> fetchPageAfter;
+    private List<SearchHit> hitsCurrentPage;
+    private CompletableFuture<List<SearchHit>> nextPage;
+    private boolean dirty;
+
+    /**
+     * @param pageSize       the size of the requested pages, a smaller page is the last one
+     * @param fetchPageAfter fetches the page of hits after the given sort values
+     */
+    public SearchAfterSearchHits(long totalHits, Float maxScore, List<SearchHit> hitsCurrentPage, int pageSize, Function<JsonArray, CompletableFuture<List<SearchHit>>> fetchPageAfter) {
+        this.totalHits = totalHits;
+        this.maxScore = maxScore;
+        this.hitsCurrentPage = hitsCurrentPage;
+        this.pageSize = pageSize;
+        this.fetchPageAfter = fetchPageAfter;
+    }
+
+    @Override
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    @Override
+    public Float getMaxScore() {
+        return maxScore;
+    }
+
+    @Override
+    public Iterator<SearchHit> iterator() {
+        assertNotDirty();
+        dirty = true;
+        prefetchNextPage();
+        return new Iterator<SearchHit>() {
+            int currentPageIdx = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (currentPageIdx == hitsCurrentPage.size() && nextPage != null) {
+                    fetchNextPage();
+                    currentPageIdx = 0;
+                }
+                return currentPageIdx < hitsCurrentPage.size();
+            }
+
+            @Override
+            public SearchHit next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return hitsCurrentPage.get(currentPageIdx++);
+            }
+        };
+    }
+
+    private void assertNotDirty() {
+        if (dirty) {
+            throw new IllegalStateException("Result was already iterated / streamed before");
+        }
+    }
+
+    // pages are fetched until a page is smaller than the page size
+    private void prefetchNextPage() {
+        if (hitsCurrentPage.size() < pageSize || hitsCurrentPage.isEmpty()) {
+            return;
+        }
+        SearchHit lastHit = hitsCurrentPage.get(hitsCurrentPage.size() - 1);
+        if (lastHit.getSortValues() == null) {
+            throw new IllegalStateException("Hit " + lastHit.getId() + " has no sort values to search after");
+        }
+        nextPage = fetchPageAfter.apply(lastHit.getSortValues());
+    }
+
+    private void fetchNextPage() {
+        try {
+            hitsCurrentPage = nextPage.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            nextPage = null;
+        }
+        prefetchNextPage();
+    }
+
+    @Override
+    public void forEach(Consumer<? super SearchHit> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<SearchHit> spliterator() {
+        Iterator<SearchHit> iterator = iterator();
+        return new Spliterator<SearchHit>() {
+            @Override
+            public boolean tryAdvance(Consumer<? super SearchHit> action) {
+                if (iterator.hasNext()) {
+                    action.accept(iterator.next());
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public Spliterator<SearchHit> trySplit() {
+                return null;
+            }
+
+            @Override
+            public long estimateSize() {
+                // the total is 0 if it was not counted exactly
+                return totalHits > 0 ? totalHits : Long.MAX_VALUE;
+            }
+
+            @Override
+            public int characteristics() {
+                return ORDERED | NONNULL | IMMUTABLE;
+            }
+        };
+    }
+
+    @Override
+    public Stream<SearchHit> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
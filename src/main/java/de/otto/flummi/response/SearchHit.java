@@ -1,19 +1,69 @@
 package de.otto.flummi.response;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import de.otto.flummi.util.StringDictionary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 public class SearchHit {
+    private static final Gson GSON = new Gson();
 
     private final String id;
-    private final JsonObject source;
+    private final byte[] rawSource;
+    private final Object boundSource;
+    private final TypeAdapter<Object> sourceAdapter;
+    private final StringDictionary dictionary;
+    private volatile JsonObject source;
     private JsonObject fields;
     private final Float score;
+    private final JsonArray sortValues;
 
     public SearchHit(final String id, final JsonObject source, final JsonObject fields, final Float score) {
+        this(id, null, null, null, null, source, fields, score, null);
+    }
+
+    private SearchHit(final String id, final byte[] rawSource, final StringDictionary dictionary, final Object boundSource, final TypeAdapter<Object> sourceAdapter, final JsonObject source, final JsonObject fields, final Float score, final JsonArray sortValues) {
         this.id = id;
+        this.rawSource = rawSource;
+        this.dictionary = dictionary;
+        this.boundSource = boundSource;
+        this.sourceAdapter = sourceAdapter;
         this.source = source;
         this.fields = fields;
         this.score = score;
+        this.sortValues = sortValues;
+    }
+
+    /**
+     * Creates a hit that keeps the _source as UTF-8 encoded json and parses it on the first call of {@link #getSource()}.
+     */
+    public static SearchHit withRawSource(final String id, final byte[] rawSource, final JsonObject fields, final Float score) {
+        return withRawSource(id, rawSource, null, fields, score, null);
+    }
+
+    /**
+     * Like {@link #withRawSource(String, byte[], JsonObject, Float)}, sharing the field names of the parsed source
+     * through the dictionary.
+     *
+     * @param sortValues the sort values of the hit, or null if the search was not sorted
+     */
+    public static SearchHit withRawSource(final String id, final byte[] rawSource, final StringDictionary dictionary, final JsonObject fields, final Float score, final JsonArray sortValues) {
+        return new SearchHit(id, rawSource, dictionary, null, null, null, fields, score, sortValues);
+    }
+
+    /**
+     * Creates a hit whose _source was bound to an object by the sourceAdapter while parsing the response.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SearchHit withBoundSource(final String id, final T boundSource, final TypeAdapter<T> sourceAdapter, final JsonObject fields, final Float score, final JsonArray sortValues) {
+        return new SearchHit(id, null, null, boundSource, (TypeAdapter<Object>) sourceAdapter, null, fields, score, sortValues);
     }
 
     public String getId() {
@@ -21,9 +71,74 @@ public class SearchHit {
     }
 
     public JsonObject getSource() {
+        JsonObject source = this.source;
+        if (source == null && rawSource != null) {
+            source = SourceBytes.parse(rawSource, dictionary);
+            this.source = source;
+        } else if (source == null && boundSource != null) {
+            source = sourceAdapter.toJsonTree(boundSource).getAsJsonObject();
+            this.source = source;
+        }
         return source;
     }
 
+    /**
+     * @return the _source bound to the given type. If the source was already bound to this type while parsing the
+     * response, that object is returned, otherwise the source is bound with a default Gson instance.
+     */
+    public <T> T getSource(Class<T> type) {
+        if (type.isInstance(boundSource)) {
+            return type.cast(boundSource);
+        }
+        if (rawSource != null) {
+            return GSON.fromJson(SourceBytes.reader(rawSource), type);
+        }
+        JsonObject source = getSource();
+        return source != null ? GSON.fromJson(source, type) : null;
+    }
+
+    /**
+     * @return the _source bound with the given adapter. If the source was already bound with this adapter while
+     * parsing the response, that object is returned.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSource(TypeAdapter<T> adapter) {
+        if (boundSource != null && sourceAdapter == adapter) {
+            return (T) boundSource;
+        }
+        try {
+            if (rawSource != null) {
+                return adapter.fromJson(SourceBytes.reader(rawSource));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        JsonObject source = getSource();
+        return source != null ? adapter.fromJsonTree(source) : null;
+    }
+
+    /**
+     * @return a read-only buffer with the _source as UTF-8 encoded json, or null if the hit has no source. Sources
+     * that were not bound to an object are returned without being parsed.
+     */
+    public ByteBuffer getSourceBytes() {
+        return SourceBytes.toBuffer(sourceBytes());
+    }
+
+    /**
+     * Writes the _source as UTF-8 encoded json to the stream, e.g. to pass it through to a client.
+     */
+    public void writeSourceTo(OutputStream out) throws IOException {
+        SourceBytes.write(sourceBytes(), out);
+    }
+
+    /**
+     * Writes the _source as UTF-8 encoded json to the channel, e.g. to pass it through to a client.
+     */
+    public void writeSourceTo(WritableByteChannel channel) throws IOException {
+        SourceBytes.write(sourceBytes(), channel);
+    }
+
     public Float getScore() {
         return score;
     }
@@ -31,4 +146,16 @@ public class SearchHit {
     public JsonObject getFields() {
         return fields;
     }
+
+    /**
+     * @return the values the hit was sorted by, e.g. to continue a search after this hit, or null if the search was
+     * not sorted
+     */
+    public JsonArray getSortValues() {
+        return sortValues;
+    }
+
+    private byte[] sourceBytes() {
+        return SourceBytes.bytes(rawSource, rawSource != null ? null : getSource());
+    }
 }
@@ -20,4 +20,11 @@ public interface SearchHits extends Iterable<SearchHit> {
     Spliterator<SearchHit> spliterator();
 
     Stream<SearchHit> stream();
+
+    /**
+     * @return the _source of every hit bound to the given type, see {@link SearchHit#getSource(Class)}
+     */
+    default <T> Stream<T> sources(Class<T> type) {
+        return stream().map(hit -> hit.getSource(type));
+    }
 }
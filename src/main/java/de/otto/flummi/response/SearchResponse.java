@@ -12,12 +12,18 @@ public class SearchResponse {
     private final String scrollId;
     private final SearchHits hits;
     private final Map<String,AggregationResult> aggregations;
+    private final int failedShards;
 
     public SearchResponse(long tookInMillis, String scrollId, SearchHits hits, Map<String, AggregationResult> aggregations) {
+        this(tookInMillis, scrollId, hits, aggregations, 0);
+    }
+
+    public SearchResponse(long tookInMillis, String scrollId, SearchHits hits, Map<String, AggregationResult> aggregations, int failedShards) {
         this.tookInMillis = tookInMillis;
         this.scrollId = scrollId;
         this.hits = hits;
         this.aggregations = aggregations;
+        this.failedShards = failedShards;
     }
 
     public SearchHits getHits() {
@@ -36,6 +42,14 @@ public class SearchResponse {
         return scrollId;
     }
 
+    /**
+     * @return the number of shards that failed to execute the search. If it is not 0, the hits and aggregations are
+     * incomplete.
+     */
+    public int getFailedShards() {
+        return failedShards;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -49,6 +63,7 @@ public class SearchResponse {
         private String scrollId;
         private SearchHits hits;
         private Map<String,AggregationResult> aggregations = new HashMap<>();
+        private int failedShards;
 
         public Builder setTookInMillis(long tookInMillis) {
             this.tookInMillis = tookInMillis;
@@ -70,8 +85,13 @@ public class SearchResponse {
             return this;
         }
 
+        public Builder setFailedShards(int failedShards) {
+            this.failedShards = failedShards;
+            return this;
+        }
+
         public SearchResponse build() {
-            return new SearchResponse(tookInMillis, scrollId, hits, aggregations);
+            return new SearchResponse(tookInMillis, scrollId, hits, aggregations, failedShards);
         }
     }
 }
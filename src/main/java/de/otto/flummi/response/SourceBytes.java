@@ -0,0 +1,67 @@
+package de.otto.flummi.response;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.otto.flummi.util.StringDictionary;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Conversions between a _source kept as UTF-8 encoded json and its json tree.
+ */
+final class SourceBytes {
+
+    private SourceBytes() {
+    }
+
+    static Reader reader(byte[] rawSource) {
+        return new InputStreamReader(new ByteArrayInputStream(rawSource), UTF_8);
+    }
+
+    /**
+     * @param dictionary shares the strings of the parsed source, or null
+     */
+    static JsonObject parse(byte[] rawSource, StringDictionary dictionary) {
+        if (dictionary != null) {
+            return dictionary.parse(reader(rawSource)).getAsJsonObject();
+        }
+        return new JsonParser().parse(reader(rawSource)).getAsJsonObject();
+    }
+
+    /**
+     * @return the raw source, or the encoded source if there is no raw source
+     */
+    static byte[] bytes(byte[] rawSource, JsonObject source) {
+        if (rawSource != null) {
+            return rawSource;
+        }
+        return source != null ? source.toString().getBytes(UTF_8) : null;
+    }
+
+    static ByteBuffer toBuffer(byte[] bytes) {
+        return bytes != null ? ByteBuffer.wrap(bytes).asReadOnlyBuffer() : null;
+    }
+
+    static void write(byte[] bytes, OutputStream out) throws IOException {
+        if (bytes != null) {
+            out.write(bytes);
+        }
+    }
+
+    static void write(byte[] bytes, WritableByteChannel channel) throws IOException {
+        if (bytes != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
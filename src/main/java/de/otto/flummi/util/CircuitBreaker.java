@@ -0,0 +1,121 @@
+package de.otto.flummi.util;
+
+/**
+ * Circuit breaker of a single node, see {@link CircuitBreakerPolicy}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final CircuitBreakerPolicy policy;
+    private final boolean[] window;
+    private int windowPosition;
+    private int recordedRequests;
+    private int failedRequests;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int successfulProbes;
+
+    public CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+        this.window = new boolean[policy.getWindowSize()];
+    }
+
+    public synchronized State getState(long nowMillis) {
+        if (state == State.OPEN && nowMillis - openedAt >= policy.getOpenMillis()) {
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            successfulProbes = 0;
+        }
+        return state;
+    }
+
+    /**
+     * @return true if a request to the node would currently be permitted
+     */
+    public synchronized boolean isRequestPermitted(long nowMillis) {
+        switch (getState(nowMillis)) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                return probesInFlight + successfulProbes < policy.getPermittedProbes();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Like {@link #isRequestPermitted(long)}, but takes one of the probes if the breaker is half-open.
+     */
+    public synchronized boolean tryAcquirePermission(long nowMillis) {
+        if (!isRequestPermitted(nowMillis)) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a permission for a request that was abandoned before it completed.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized void onComplete(long nowMillis, boolean failed, long latencyMillis) {
+        boolean failedOrSlow = failed || (policy.getSlowRequestMillis() != null && latencyMillis > policy.getSlowRequestMillis());
+        switch (state) {
+            case HALF_OPEN:
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (failedOrSlow) {
+                    open(nowMillis);
+                } else if (++successfulProbes >= policy.getPermittedProbes()) {
+                    close();
+                }
+                break;
+            case CLOSED:
+                record(failedOrSlow);
+                if (recordedRequests >= policy.getMinimumNumberOfRequests()
+                        && failedRequests >= policy.getFailureRateThreshold() * recordedRequests) {
+                    open(nowMillis);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recordedRequests == window.length) {
+            if (window[windowPosition]) {
+                failedRequests--;
+            }
+        } else {
+            recordedRequests++;
+        }
+        window[windowPosition] = failed;
+        if (failed) {
+            failedRequests++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void open(long nowMillis) {
+        state = State.OPEN;
+        openedAt = nowMillis;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowPosition = 0;
+        recordedRequests = 0;
+        failedRequests = 0;
+    }
+}
@@ -0,0 +1,71 @@
+package de.otto.flummi.util;
+
+/**
+ * Settings of the per-node circuit breakers. A breaker opens if the share of failed or slow requests among the
+ * last windowSize requests to a node exceeds the failure rate threshold. An open breaker rejects requests to the
+ * node for openMillis, then lets permittedProbes requests through. If all of them succeed, the breaker closes again.
+ */
+public class CircuitBreakerPolicy {
+
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private int windowSize = 100;
+    private int minimumNumberOfRequests = 20;
+    private Long slowRequestMillis;
+    private int permittedProbes = 3;
+
+    public CircuitBreakerPolicy(double failureRateThreshold, long openMillis) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be > 0 and <= 1");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public CircuitBreakerPolicy setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    public CircuitBreakerPolicy setMinimumNumberOfRequests(int minimumNumberOfRequests) {
+        this.minimumNumberOfRequests = minimumNumberOfRequests;
+        return this;
+    }
+
+    /**
+     * Requests that take longer than slowRequestMillis count as failed, even if they succeed.
+     */
+    public CircuitBreakerPolicy setSlowRequestMillis(Long slowRequestMillis) {
+        this.slowRequestMillis = slowRequestMillis;
+        return this;
+    }
+
+    public CircuitBreakerPolicy setPermittedProbes(int permittedProbes) {
+        this.permittedProbes = permittedProbes;
+        return this;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumNumberOfRequests() {
+        return minimumNumberOfRequests;
+    }
+
+    public Long getSlowRequestMillis() {
+        return slowRequestMillis;
+    }
+
+    public int getPermittedProbes() {
+        return permittedProbes;
+    }
+}
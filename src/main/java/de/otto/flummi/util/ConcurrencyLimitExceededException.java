@@ -0,0 +1,7 @@
+package de.otto.flummi.util;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,156 @@
+package de.otto.flummi.util;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Limits the number of concurrent requests. The limit adapts to the measured latency: as long as requests are
+ * as fast as usual the limit grows, when latency rises because Elasticsearch is queueing the requests, the
+ * limit shrinks by the ratio of the long-term to the current latency (gradient). Rejected, timed out and failed
+ * requests shrink the limit multiplicatively. Requests beyond the limit wait in a bounded queue for at most
+ * maxWaitMillis and are rejected with a {@link ConcurrencyLimitExceededException} otherwise.
+ */
+public class ConcurrencyLimiter {
+
+    public static final Logger LOG = getLogger(ConcurrencyLimiter.class);
+
+    static final double BACKOFF_RATIO = 0.9;
+    static final double SMOOTHING = 0.2;
+    static final double LONG_RTT_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private int maxQueueSize = 0;
+    private long maxWaitMillis = 0;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double longRttNanos;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Requests beyond the limit wait for at most maxWaitMillis in a queue of at most maxQueueSize requests.
+     * By default, they are rejected immediately.
+     */
+    public ConcurrencyLimiter setQueue(int maxQueueSize, long maxWaitMillis) {
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return a future that completes when the request may be sent, or fails with a
+     * {@link ConcurrencyLimitExceededException} if it is rejected.
+     */
+    public CompletableFuture<Void> acquire() {
+        Waiter waiter;
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiters.size() >= maxQueueSize) {
+                return rejected();
+            }
+            waiter = new Waiter();
+            waiters.addLast(waiter);
+            waiter.timeout = HttpClientWrapper.SCHEDULER.schedule(() -> timeout(waiter), maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        return waiter.permit;
+    }
+
+    /**
+     * Returns the permit of a completed request and adjusts the limit.
+     *
+     * @param rttNanos the latency of the request
+     * @param dropped  true if the request failed, timed out or was rejected by Elasticsearch
+     */
+    public void release(long rttNanos, boolean dropped) {
+        Waiter next;
+        synchronized (this) {
+            inFlight--;
+            updateLimit(rttNanos, dropped);
+            next = inFlight < (int) limit ? waiters.pollFirst() : null;
+            if (next != null) {
+                inFlight++;
+            }
+        }
+        if (next != null) {
+            next.timeout.cancel(false);
+            if (!next.permit.complete(null)) {
+                release(0, false);
+            }
+        }
+    }
+
+    private void updateLimit(long rttNanos, boolean dropped) {
+        double oldLimit = limit;
+        if (dropped) {
+            limit = max(minLimit, limit * BACKOFF_RATIO);
+        } else if (rttNanos > 0) {
+            longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+            // let the long-term latency recover quickly after a phase of high latency
+            if (longRttNanos > 2 * rttNanos) {
+                longRttNanos *= 0.95;
+            }
+            // do not grow the limit if it is not used
+            if (inFlight + 1 < limit / 2) {
+                return;
+            }
+            double gradient = max(0.5, min(1.0, longRttNanos / rttNanos));
+            double queueSize = Math.sqrt(limit);
+            double newLimit = limit * gradient + queueSize;
+            limit = max(minLimit, min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+        }
+        if ((int) oldLimit != (int) limit) {
+            LOG.debug("concurrency limit changed from {} to {}", (int) oldLimit, (int) limit);
+        }
+    }
+
+    private void timeout(Waiter waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = waiters.remove(waiter);
+        }
+        if (removed) {
+            waiter.permit.completeExceptionally(new ConcurrencyLimitExceededException("timed out waiting for a free slot, limit is " + getLimit()));
+        }
+    }
+
+    private CompletableFuture<Void> rejected() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new ConcurrencyLimitExceededException("too many concurrent requests, limit is " + (int) limit));
+        return future;
+    }
+
+    private static class Waiter {
+        private final CompletableFuture<Void> permit = new CompletableFuture<>();
+        private ScheduledFuture<?> timeout;
+    }
+}
@@ -0,0 +1,138 @@
+package de.otto.flummi.util;
+
+import org.asynchttpclient.Response;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Opens connectionsPerNode connections to every node of the {@link NodePool} by sending as many concurrent
+ * HEAD requests, so the first requests do not pay for TCP and TLS handshakes. Once started, the probes are
+ * repeated every probeIntervalMillis to keep idle connections alive; the interval should be shorter than the
+ * pooled connection idle timeout of the AsyncHttpClient. Nodes that do not answer are quarantined.
+ */
+public class ConnectionWarmer implements Closeable {
+
+    public static final Logger LOG = getLogger(ConnectionWarmer.class);
+    public static final long DEFAULT_PROBE_TIMEOUT_MILLIS = 5_000;
+
+    private final HttpClientWrapper httpClient;
+    private final int connectionsPerNode;
+    private final long probeIntervalMillis;
+    private volatile long probeTimeoutMillis = DEFAULT_PROBE_TIMEOUT_MILLIS;
+    private ScheduledExecutorService scheduler;
+
+    public ConnectionWarmer(HttpClientWrapper httpClient, int connectionsPerNode) {
+        this(httpClient, connectionsPerNode, 0);
+    }
+
+    public ConnectionWarmer(HttpClientWrapper httpClient, int connectionsPerNode, long probeIntervalMillis) {
+        if (connectionsPerNode < 1) {
+            throw new IllegalArgumentException("connectionsPerNode must be at least 1");
+        }
+        this.httpClient = httpClient;
+        this.connectionsPerNode = connectionsPerNode;
+        this.probeIntervalMillis = probeIntervalMillis;
+    }
+
+    /**
+     * Sets how long a warm-up waits for the answers of all probes. Nodes that did not answer in time are quarantined.
+     */
+    public ConnectionWarmer setProbeTimeoutMillis(long probeTimeoutMillis) {
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Warms up the connections once and then probes them every probeIntervalMillis until the warmer is closed.
+     */
+    public synchronized ConnectionWarmer start() {
+        if (probeIntervalMillis <= 0) {
+            throw new IllegalStateException("probeIntervalMillis must be positive to start the ConnectionWarmer");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("ConnectionWarmer was already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "flummi-keep-alive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::warmUpSafely, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends connectionsPerNode concurrent HEAD requests to every node and waits at most the probe timeout for the
+     * answers.
+     *
+     * @return true if all nodes answered
+     */
+    public boolean warmUp() {
+        boolean allNodesAnswered = true;
+        NodePool nodePool = httpClient.getNodePool();
+        List<Node> nodes = nodePool.getNodes();
+        List<List<CompletableFuture<Response>>> probes = new ArrayList<>();
+        for (Node node : nodes) {
+            probes.add(httpClient.probe(node, connectionsPerNode));
+        }
+        long timeoutNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(probeTimeoutMillis);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (answered(probes.get(i), timeoutNanos)) {
+                nodePool.markAlive(node);
+            } else {
+                LOG.warn("{} did not answer the connection probes", node.getUrl());
+                nodePool.markFailed(node);
+                allNodesAnswered = false;
+            }
+        }
+        return allNodesAnswered;
+    }
+
+    private static boolean answered(List<CompletableFuture<Response>> probes, long timeoutNanos) {
+        boolean answered = true;
+        for (CompletableFuture<Response> probe : probes) {
+            Response response = awaitProbe(probe, timeoutNanos);
+            answered &= response != null && response.getStatusCode() < 500;
+        }
+        return answered;
+    }
+
+    // a probe that failed or did not answer before the timeout counts as not answered
+    private static Response awaitProbe(CompletableFuture<Response> probe, long timeoutNanos) {
+        try {
+            return probe.get(Math.max(0, timeoutNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    private void warmUpSafely() {
+        try {
+            warmUp();
+        } catch (RuntimeException e) {
+            LOG.warn("failed to probe connections", e);
+        }
+    }
+}
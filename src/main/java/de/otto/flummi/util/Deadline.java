@@ -0,0 +1,58 @@
+package de.otto.flummi.util;
+
+import org.asynchttpclient.BoundRequestBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.max;
+
+/**
+ * Bounds the total time of an operation that may consist of several requests, including retries and
+ * the pages of a scrolling search. The same deadline can be passed to several request builders.
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline afterMillis(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return the remaining time in milliseconds, rounded up, or 0 if the deadline is expired
+     */
+    public long remainingMillis() {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        return max(0, (remainingNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Applies the deadline to a request. Requests prepared by {@link HttpClientWrapper} fail with a
+     * {@link DeadlineExceededException} when the deadline expires, other requests get the remaining time
+     * as request timeout.
+     *
+     * @throws DeadlineExceededException if the deadline has already expired
+     */
+    public BoundRequestBuilder applyTo(BoundRequestBuilder boundRequestBuilder) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("deadline exceeded");
+        }
+        if (boundRequestBuilder instanceof RoutingRequestBuilder) {
+            return ((RoutingRequestBuilder) boundRequestBuilder).setDeadline(this);
+        }
+        return boundRequestBuilder.setRequestTimeout((int) Math.min(Integer.MAX_VALUE, remainingMillis()));
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remainingMillis=" + remainingMillis() + '}';
+    }
+}
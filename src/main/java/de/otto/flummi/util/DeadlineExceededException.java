@@ -0,0 +1,7 @@
+package de.otto.flummi.util;
+
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
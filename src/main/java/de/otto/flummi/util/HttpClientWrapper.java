@@ -1,50 +1,583 @@
 package de.otto.flummi.util;
 
+import de.otto.flummi.response.SearchResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.slf4j.Logger;
 
 import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import static de.otto.flummi.util.ListenableCompletableFuture.toCompletableFuture;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.nonNull;
+import static org.slf4j.LoggerFactory.getLogger;
 
 public class HttpClientWrapper {
 
+    public static final Logger LOG = getLogger(HttpClientWrapper.class);
+
+    static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "flummi-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final AsyncHttpClient asyncHttpClient;
-    private final String baseUrl;
+    private final NodePool nodePool;
     private final String username;
     private final String password;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.NO_RETRIES;
+    private volatile Long hedgeDelayMillis;
+    private volatile Map<RequestPriority, AsyncHttpClient> asyncHttpClients = new EnumMap<>(RequestPriority.class);
+    private volatile Map<RequestPriority, ConcurrencyLimiter> concurrencyLimiters = new EnumMap<>(RequestPriority.class);
+    private volatile Integer gzipRequestBodyThreshold;
+    private volatile boolean compressResponses;
+    private volatile Long defaultDeadlineMillis;
+    private volatile Executor responseExecutor = ForkJoinPool.commonPool();
+    private volatile StringDictionary stringDictionary = new StringDictionary(StringDictionary.DEFAULT_MAX_SIZE, false);
+    private final SingleFlight<String, SearchResponse> searchesInFlight = new SingleFlight<>();
 
     public HttpClientWrapper(AsyncHttpClient asyncHttpClient, String baseUrl) {
         this(asyncHttpClient, baseUrl, null, null);
     }
 
     public HttpClientWrapper(AsyncHttpClient asyncHttpClient, String baseUrl, String username, String password) {
+        this(asyncHttpClient, singletonList(baseUrl), username, password);
+    }
+
+    public HttpClientWrapper(AsyncHttpClient asyncHttpClient, List<String> nodeUrls) {
+        this(asyncHttpClient, nodeUrls, null, null);
+    }
+
+    public HttpClientWrapper(AsyncHttpClient asyncHttpClient, List<String> nodeUrls, String username, String password) {
+        this(asyncHttpClient, new NodePool(nodeUrls), username, password);
+    }
+
+    HttpClientWrapper(AsyncHttpClient asyncHttpClient, NodePool nodePool, String username, String password) {
         this.asyncHttpClient = asyncHttpClient;
-        this.baseUrl = baseUrl;
+        this.nodePool = nodePool;
         this.username = username;
         this.password = password;
     }
 
+    public NodePool getNodePool() {
+        return nodePool;
+    }
+
+    public HttpClientWrapper setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public HttpClientWrapper setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        nodePool.setCircuitBreakerPolicy(circuitBreakerPolicy);
+        return this;
+    }
+
+    /**
+     * Sends each request to the less loaded of two random nodes instead of round-robin, see {@link NodePool#setLatencyAware(boolean)}.
+     */
+    public HttpClientWrapper setLatencyAwareNodeSelection(boolean latencyAware) {
+        nodePool.setLatencyAware(latencyAware);
+        return this;
+    }
+
+    /**
+     * Prefers nodes and shard copies in the given zone, see {@link NodePool#setLocalZone(String)}.
+     */
+    public HttpClientWrapper setLocalZone(String localZone) {
+        nodePool.setLocalZone(localZone);
+        return this;
+    }
+
+    /**
+     * Enables hedging of search, get and multi-get requests: if a request has not been answered after
+     * hedgeDelayMillis, the same request is sent to another node. The first answer is used, the other
+     * request is cancelled. A good delay is the 95th percentile of the observed latency.
+     *
+     * @param hedgeDelayMillis the delay or null to disable hedging
+     */
+    public HttpClientWrapper setHedgeDelayMillis(Long hedgeDelayMillis) {
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        return this;
+    }
+
+    /**
+     * Limits the number of concurrent requests of all priorities with one shared limiter, see {@link ConcurrencyLimiter}.
+     * Requests beyond the limit fail with a {@link ConcurrencyLimitExceededException}.
+     *
+     * @param concurrencyLimiter the limiter or null to disable limiting
+     */
+    public HttpClientWrapper setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        for (RequestPriority priority : RequestPriority.values()) {
+            setConcurrencyLimiter(priority, concurrencyLimiter);
+        }
+        return this;
+    }
+
+    /**
+     * Limits the number of concurrent requests of the given priority separately from the other priorities.
+     *
+     * @param concurrencyLimiter the limiter or null to disable limiting
+     */
+    public synchronized HttpClientWrapper setConcurrencyLimiter(RequestPriority priority, ConcurrencyLimiter concurrencyLimiter) {
+        Map<RequestPriority, ConcurrencyLimiter> limiters = new EnumMap<>(this.concurrencyLimiters);
+        limiters.put(priority, concurrencyLimiter);
+        this.concurrencyLimiters = limiters;
+        return this;
+    }
+
+    /**
+     * Sends requests of the given priority with their own AsyncHttpClient, and so with their own connection pool.
+     * By default, all requests are sent with the AsyncHttpClient passed to the constructor.
+     */
+    public synchronized HttpClientWrapper setAsyncHttpClient(RequestPriority priority, AsyncHttpClient asyncHttpClient) {
+        Map<RequestPriority, AsyncHttpClient> clients = new EnumMap<>(this.asyncHttpClients);
+        clients.put(priority, asyncHttpClient);
+        this.asyncHttpClients = clients;
+        return this;
+    }
+
+    /**
+     * Compresses request bodies of at least gzipRequestBodyThreshold bytes with gzip.
+     *
+     * @param gzipRequestBodyThreshold the minimum body size in bytes or null to disable compression
+     */
+    public HttpClientWrapper setGzipRequestBodyThreshold(Integer gzipRequestBodyThreshold) {
+        this.gzipRequestBodyThreshold = gzipRequestBodyThreshold;
+        return this;
+    }
+
+    public Integer getGzipRequestBodyThreshold() {
+        return gzipRequestBodyThreshold;
+    }
+
+    /**
+     * Requests gzip compressed responses. Elasticsearch only compresses responses if http.compression is enabled.
+     */
+    public HttpClientWrapper setCompressResponses(boolean compressResponses) {
+        this.compressResponses = compressResponses;
+        return this;
+    }
+
+    public boolean isCompressResponses() {
+        return compressResponses;
+    }
+
+    /**
+     * Bounds the time of every operation that has no explicit {@link Deadline}, including retries and
+     * the pages of a scrolling search.
+     *
+     * @param defaultDeadlineMillis the time in milliseconds or null for no deadline
+     */
+    public HttpClientWrapper setDefaultDeadlineMillis(Long defaultDeadlineMillis) {
+        this.defaultDeadlineMillis = defaultDeadlineMillis;
+        return this;
+    }
+
+    /**
+     * @return a new deadline according to the default deadline setting, or null if there is no default
+     */
+    public Deadline defaultDeadline() {
+        Long defaultDeadlineMillis = this.defaultDeadlineMillis;
+        return defaultDeadlineMillis != null ? Deadline.afterMillis(defaultDeadlineMillis) : null;
+    }
+
+    /**
+     * Sets the executor that parses the responses of asynchronously executed requests, so that parsing
+     * does not block the I/O threads of the http client. Defaults to the common fork join pool.
+     */
+    public HttpClientWrapper setResponseExecutor(Executor responseExecutor) {
+        this.responseExecutor = Objects.requireNonNull(responseExecutor);
+        return this;
+    }
+
+    public Executor getResponseExecutor() {
+        return responseExecutor;
+    }
+
+    /**
+     * Sets the dictionary that shares the field names of the hits and documents parsed by this client, see
+     * {@link StringDictionary}. Defaults to a dictionary of field names only.
+     *
+     * @param stringDictionary the dictionary or null to not share any strings
+     */
+    public HttpClientWrapper setStringDictionary(StringDictionary stringDictionary) {
+        this.stringDictionary = stringDictionary;
+        return this;
+    }
+
+    public StringDictionary getStringDictionary() {
+        return stringDictionary;
+    }
+
+    /**
+     * @return the identical searches in flight, shared by all search requests with deduplication enabled
+     */
+    public SingleFlight<String, SearchResponse> getSearchesInFlight() {
+        return searchesInFlight;
+    }
+
     public BoundRequestBuilder prepareGet(String url) {
-        return withBasicAuth(asyncHttpClient.prepareGet(baseUrl + url));
+        return prepare("GET", url, AsyncHttpClient::prepareGet);
     }
 
     public BoundRequestBuilder preparePost(String url) {
-        return withBasicAuth(asyncHttpClient.preparePost(baseUrl + url));
+        return prepare("POST", url, AsyncHttpClient::preparePost);
     }
 
     public BoundRequestBuilder preparePut(String url) {
-        return withBasicAuth(asyncHttpClient.preparePut(baseUrl + url));
+        return prepare("PUT", url, AsyncHttpClient::preparePut);
     }
 
     public BoundRequestBuilder prepareDelete(String url) {
-        return withBasicAuth(asyncHttpClient.prepareDelete(baseUrl + url));
+        return prepare("DELETE", url, AsyncHttpClient::prepareDelete);
     }
 
     public BoundRequestBuilder prepareHead(String url) {
-        return withBasicAuth(asyncHttpClient.prepareHead(baseUrl + url));
+        return prepare("HEAD", url, AsyncHttpClient::prepareHead);
+    }
+
+    private BoundRequestBuilder prepare(String method, String url, BiFunction<AsyncHttpClient, String, BoundRequestBuilder> prepare) {
+        return new RoutingRequestBuilder(this, asyncHttpClient, method, url, prepare);
+    }
+
+    BoundRequestBuilder prepareForNode(BiFunction<AsyncHttpClient, String, BoundRequestBuilder> prepare, RequestPriority priority, String nodeUrl) {
+        AsyncHttpClient client = asyncHttpClients.getOrDefault(priority, asyncHttpClient);
+        return withBasicAuth(prepare.apply(client, nodeUrl));
+    }
+
+    /**
+     * Sends the given number of concurrent HEAD requests to the node with every AsyncHttpClient in use,
+     * bypassing retries, limits and circuit breakers.
+     */
+    List<CompletableFuture<Response>> probe(Node node, int connections) {
+        Set<AsyncHttpClient> clients = new LinkedHashSet<>();
+        clients.add(asyncHttpClient);
+        asyncHttpClients.values().stream().filter(Objects::nonNull).forEach(clients::add);
+        List<CompletableFuture<Response>> probes = new ArrayList<>();
+        for (AsyncHttpClient client : clients) {
+            for (int i = 0; i < connections; i++) {
+                try {
+                    probes.add(toCompletableFuture(withBasicAuth(client.prepareHead(node.getUrl() + "/")).execute()));
+                } catch (RuntimeException e) {
+                    probes.add(failedFuture(e));
+                }
+            }
+        }
+        return probes;
+    }
+
+    CompletableFuture<Response> execute(RoutingRequestBuilder request) {
+        return execute(request, () -> send(request), HttpClientWrapper::isOverloadResponse);
+    }
+
+    <T> CompletableFuture<T> execute(RoutingRequestBuilder request, AsyncHandler<T> handler) {
+        AtomicInteger statusCode = new AtomicInteger();
+        AtomicBoolean failureReported = new AtomicBoolean();
+        CompletableFuture<T> result = execute(request, () -> sendWithHandler(request, handler, statusCode, failureReported),
+                response -> isOverloadStatus(statusCode.get()));
+        // also reports failures before or between attempts, e.g. an expired deadline, so the handler never waits forever
+        result.whenComplete((response, throwable) -> {
+            if (throwable != null && failureReported.compareAndSet(false, true)) {
+                handler.onThrowable(throwable);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> execute(RoutingRequestBuilder request, Supplier<CompletableFuture<T>> send, Predicate<T> isOverload) {
+        if (request.getDeadline() == null) {
+            request.setDeadline(defaultDeadline());
+        }
+        Deadline deadline = request.getDeadline();
+        if (deadline == null) {
+            return executeLimited(request, send, isOverload);
+        }
+        if (deadline.isExpired()) {
+            return failedFuture(deadlineExceeded(request));
+        }
+        CompletableFuture<T> result = executeLimited(request, send, isOverload);
+        ScheduledFuture<?> deadlineTimer = SCHEDULER.schedule(
+                () -> result.completeExceptionally(deadlineExceeded(request)),
+                deadline.remainingMillis(),
+                TimeUnit.MILLISECONDS);
+        result.whenComplete((response, throwable) -> deadlineTimer.cancel(false));
+        return result;
+    }
+
+    private <T> CompletableFuture<T> executeLimited(RoutingRequestBuilder request, Supplier<CompletableFuture<T>> send, Predicate<T> isOverload) {
+        ConcurrencyLimiter limiter = concurrencyLimiters.get(request.getPriority());
+        if (limiter == null) {
+            return send.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        limiter.acquire().whenComplete((permit, rejected) -> {
+            if (rejected != null) {
+                result.completeExceptionally(rejected);
+                return;
+            }
+            if (result.isDone()) {
+                limiter.release(0, false);
+                return;
+            }
+            long startNanos = System.nanoTime();
+            CompletableFuture<T> sent = send.get();
+            result.whenComplete((response, throwable) -> {
+                if (!sent.isDone()) {
+                    sent.cancel(true);
+                }
+            });
+            sent.whenComplete((response, throwable) -> {
+                limiter.release(System.nanoTime() - startNanos, throwable != null || isOverload.test(response));
+                if (throwable == null) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            });
+        });
+        return result;
+    }
+
+    private CompletableFuture<Response> send(RoutingRequestBuilder request) {
+        List<Node> nodes = nodePool.nodesForRequest();
+        if (nodes.isEmpty()) {
+            return failedFuture(noNodeAvailable());
+        }
+        Long hedgeDelayMillis = this.hedgeDelayMillis;
+        if (hedgeDelayMillis != null && nodes.size() > 1 && request.isHedgeable()) {
+            return executeHedged(request, nodes, hedgeDelayMillis);
+        }
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        sendToNextNode(request, nodes.iterator(), 0, result);
+        return result;
+    }
+
+    private CompletableFuture<Response> executeHedged(RoutingRequestBuilder request, List<Node> nodes, long hedgeDelayMillis) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        CompletableFuture<Response> primary = new CompletableFuture<>();
+        CompletableFuture<Response> hedge = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        BiConsumer<Response, Throwable> onAttemptComplete = (response, throwable) -> {
+            if (throwable == null) {
+                result.complete(response);
+            } else {
+                firstFailure.compareAndSet(null, throwable);
+                if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(firstFailure.get());
+                }
+            }
+        };
+
+        primary.whenComplete(onAttemptComplete);
+        sendToNextNode(request, nodes.iterator(), 0, primary);
+        ScheduledFuture<?> hedgeTimer = SCHEDULER.schedule(() -> {
+            if (!result.isDone() && outstanding.getAndIncrement() > 0) {
+                LOG.debug("hedging {} {}", request.getMethod(), request.getUrl());
+                hedge.whenComplete(onAttemptComplete);
+                List<Node> hedgeNodes = new ArrayList<>(nodes.subList(1, nodes.size()));
+                hedgeNodes.add(nodes.get(0));
+                sendToNextNode(request, hedgeNodes.iterator(), 0, hedge);
+            }
+        }, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((response, throwable) -> {
+            hedgeTimer.cancel(false);
+            primary.cancel(true);
+            hedge.cancel(true);
+        });
+        return result;
+    }
+
+    private void sendToNextNode(RoutingRequestBuilder request, Iterator<Node> nodes, int retries, CompletableFuture<Response> result) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!nodes.hasNext()) {
+            result.completeExceptionally(noNodeAvailable());
+            return;
+        }
+        Node node = nodes.next();
+        if (!nodePool.tryAcquirePermission(node)) {
+            sendToNextNode(request, nodes, retries, result);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        ListenableFuture<Response> inFlight;
+        try {
+            inFlight = request.prepareFor(node).execute();
+        } catch (RuntimeException e) {
+            nodePool.releasePermission(node);
+            result.completeExceptionally(e);
+            return;
+        }
+        result.whenComplete((response, throwable) -> {
+            if (!inFlight.isDone()) {
+                inFlight.cancel(true);
+            }
+        });
+        toCompletableFuture(inFlight).whenComplete((response, throwable) -> {
+            if (result.isDone()) {
+                nodePool.releasePermission(node);
+                return;
+            }
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            nodePool.onRequestComplete(node, throwable != null || isErrorResponse(response), latencyMillis);
+            if (throwable == null) {
+                if (RetryPolicy.isNodeFailure(response)) {
+                    nodePool.markFailed(node);
+                } else {
+                    nodePool.markAlive(node);
+                }
+                if (retryPolicy.shouldRetry(request, response, retries)) {
+                    LOG.warn("retrying {} {} after status {}", request.getMethod(), request.getUrl(), response.getStatusCode());
+                    retry(request, retries, result);
+                } else {
+                    result.complete(response);
+                }
+            } else {
+                nodePool.markFailed(node);
+                if (throwable instanceof ConnectException && nodes.hasNext()) {
+                    sendToNextNode(request, nodes, retries, result);
+                } else if (retryPolicy.shouldRetry(request, throwable, retries)) {
+                    LOG.warn("retrying {} {} after {}", request.getMethod(), request.getUrl(), throwable.toString());
+                    retry(request, retries, result);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            }
+        });
+    }
+
+    // a custom handler may consume the response, so only failed connections are sent to the next node
+    private <T> CompletableFuture<T> sendWithHandler(RoutingRequestBuilder request, AsyncHandler<T> handler, AtomicInteger statusCode, AtomicBoolean failureReported) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        sendToNextNode(request, handler, statusCode, failureReported, nodePool.nodesForRequest().iterator(), result);
+        return result;
+    }
+
+    private <T> void sendToNextNode(RoutingRequestBuilder request, AsyncHandler<T> handler, AtomicInteger statusCode, AtomicBoolean failureReported, Iterator<Node> nodes, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!nodes.hasNext()) {
+            result.completeExceptionally(noNodeAvailable());
+            return;
+        }
+        Node node = nodes.next();
+        if (!nodePool.tryAcquirePermission(node)) {
+            sendToNextNode(request, handler, statusCode, failureReported, nodes, result);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        RoutingAsyncHandler<T> routingHandler = RoutingAsyncHandler.forDelegate(handler, failureReported);
+        ListenableFuture<T> inFlight;
+        try {
+            inFlight = request.prepareFor(node).execute(routingHandler);
+        } catch (RuntimeException e) {
+            nodePool.releasePermission(node);
+            result.completeExceptionally(e);
+            return;
+        }
+        result.whenComplete((response, throwable) -> {
+            if (!inFlight.isDone()) {
+                inFlight.cancel(true);
+            }
+        });
+        toCompletableFuture(inFlight).whenComplete((response, throwable) -> {
+            if (result.isDone()) {
+                nodePool.releasePermission(node);
+                return;
+            }
+            statusCode.set(routingHandler.getStatusCode());
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            nodePool.onRequestComplete(node, throwable != null || isErrorStatus(statusCode.get()), latencyMillis);
+            if (throwable == null) {
+                if (RetryPolicy.isNodeFailure(statusCode.get())) {
+                    nodePool.markFailed(node);
+                } else {
+                    nodePool.markAlive(node);
+                }
+                result.complete(response);
+            } else {
+                nodePool.markFailed(node);
+                if (throwable instanceof ConnectException && !routingHandler.isForwarded() && nodes.hasNext()) {
+                    sendToNextNode(request, handler, statusCode, failureReported, nodes, result);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            }
+        });
+    }
+
+    private static boolean isErrorResponse(Response response) {
+        return isErrorStatus(response.getStatusCode());
+    }
+
+    private static boolean isErrorStatus(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    private static boolean isOverloadResponse(Response response) {
+        return isOverloadStatus(response.getStatusCode());
+    }
+
+    private static boolean isOverloadStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 503 || statusCode == 504;
+    }
+
+    private static DeadlineExceededException deadlineExceeded(RoutingRequestBuilder request) {
+        return new DeadlineExceededException("deadline exceeded for " + request.getMethod() + " " + request.getUrl());
+    }
+
+    private static NoNodeAvailableException noNodeAvailable() {
+        return new NoNodeAvailableException("no node available, circuit breakers of all nodes are open");
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private void retry(RoutingRequestBuilder request, int retries, CompletableFuture<Response> result) {
+        SCHEDULER.schedule(
+                () -> sendToNextNode(request, nodePool.nodesForRequest().iterator(), retries + 1, result),
+                retryPolicy.backoffMillis(retries),
+                TimeUnit.MILLISECONDS);
     }
 
     private BoundRequestBuilder withBasicAuth(final BoundRequestBuilder boundRequestBuilder) {
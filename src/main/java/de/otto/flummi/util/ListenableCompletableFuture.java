@@ -0,0 +1,95 @@
+package de.otto.flummi.util;
+
+import org.asynchttpclient.ListenableFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Exposes a CompletableFuture as an async-http-client ListenableFuture, and vice versa.
+ */
+public class ListenableCompletableFuture<T> implements ListenableFuture<T> {
+    private final CompletableFuture<T> future;
+
+    ListenableCompletableFuture(CompletableFuture<T> future) {
+        this.future = future;
+    }
+
+    public static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable complete = () -> {
+            try {
+                result.complete(listenableFuture.get());
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        if (listenableFuture.isDone()) {
+            complete.run();
+        } else {
+            listenableFuture.addListener(complete, Runnable::run);
+        }
+        return result;
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        future.completeExceptionally(t);
+    }
+
+    @Override
+    public void touch() {
+    }
+
+    @Override
+    public ListenableFuture<T> addListener(Runnable listener, Executor exec) {
+        if (exec == null) {
+            future.whenComplete((value, throwable) -> listener.run());
+        } else {
+            future.whenCompleteAsync((value, throwable) -> listener.run(), exec);
+        }
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return future.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return future.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(timeout, unit);
+    }
+}
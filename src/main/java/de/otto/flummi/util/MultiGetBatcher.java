@@ -0,0 +1,134 @@
+package de.otto.flummi.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import de.otto.flummi.request.MultiGetRequestBuilder;
+import de.otto.flummi.response.GetResponse;
+import de.otto.flummi.response.MultiGetDocumentException;
+import de.otto.flummi.response.MultiGetRequestDocument;
+import de.otto.flummi.response.MultiGetResponseDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.flummi.response.MultiGetRequestDocument.multiGetRequestDocumentBuilder;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Collects concurrent single-document gets and sends them as one multi-get request, either when maxBatchSize gets
+ * are pending or batchWindowMillis after the first pending get, whichever comes first.
+ */
+public class MultiGetBatcher {
+
+    private final HttpClientWrapper httpClient;
+    private final int maxBatchSize;
+    private final long batchWindowMillis;
+
+    private List<PendingGet> pending = new ArrayList<>();
+    private ScheduledFuture<?> timer;
+
+    public MultiGetBatcher(HttpClientWrapper httpClient, int maxBatchSize, long batchWindowMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.httpClient = httpClient;
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindowMillis = batchWindowMillis;
+    }
+
+    /**
+     * @return a future that completes with the document when the batch containing it has been fetched
+     */
+    public CompletableFuture<GetResponse> get(String indexName, String documentType, String id) {
+        PendingGet get = new PendingGet(multiGetRequestDocumentBuilder()
+                .withIndex(indexName)
+                .withType(documentType)
+                .withId(id)
+                .build());
+        List<PendingGet> batch = null;
+        synchronized (this) {
+            pending.add(get);
+            if (pending.size() >= maxBatchSize) {
+                batch = takePending();
+            } else if (pending.size() == 1) {
+                timer = HttpClientWrapper.SCHEDULER.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return get.future;
+    }
+
+    /**
+     * Sends the pending gets without waiting for the batch window to end.
+     */
+    public void flush() {
+        List<PendingGet> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<PendingGet> takePending() {
+        List<PendingGet> batch = pending;
+        pending = new ArrayList<>();
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingGet> batch) {
+        new MultiGetRequestBuilder(httpClient)
+                .setRequestDocuments(batch.stream().map(g -> g.document).collect(toList()))
+                .executeAsync()
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        batch.forEach(g -> g.future.completeExceptionally(cause));
+                        return;
+                    }
+                    // the documents of a multi-get response are in the order of the requested documents
+                    List<MultiGetResponseDocument> documents = response.getMultiGetResponseDocuments();
+                    for (int i = 0; i < batch.size(); i++) {
+                        PendingGet get = batch.get(i);
+                        if (i < documents.size()) {
+                            MultiGetResponseDocument document = documents.get(i);
+                            if (document.getError() != null && !isIndexNotFound(document.getError())) {
+                                get.future.completeExceptionally(new MultiGetDocumentException(get.document.getId(), document.getError()));
+                            } else {
+                                get.future.complete(document.isFound()
+                                        ? document.toGetResponse()
+                                        : new GetResponse(false, null, get.document.getId()));
+                            }
+                        } else {
+                            get.future.completeExceptionally(new IllegalStateException("Missing document in multi-get response: " + get.document.getId()));
+                        }
+                    }
+                });
+    }
+
+    // a single get of a document in a missing index is answered with 404, so it is not found either
+    private static boolean isIndexNotFound(JsonObject error) {
+        JsonElement type = error.get("type");
+        return type != null && type.isJsonPrimitive() && "index_not_found_exception".equals(type.getAsString());
+    }
+
+    private static class PendingGet {
+        private final MultiGetRequestDocument document;
+        private final CompletableFuture<GetResponse> future = new CompletableFuture<>();
+
+        private PendingGet(MultiGetRequestDocument document) {
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package de.otto.flummi.util;
+
+public class NoNodeAvailableException extends RuntimeException {
+    public NoNodeAvailableException(String message) {
+        super(message);
+    }
+}
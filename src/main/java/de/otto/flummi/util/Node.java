@@ -0,0 +1,148 @@
+package de.otto.flummi.util;
+
+import static java.lang.Math.exp;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A single Elasticsearch node the client talks to. Keeps track of failed requests so that
+ * failing nodes can be quarantined for an exponentially growing period of time, and of the
+ * latency and the number of requests in flight, which make up the load of the node.
+ */
+public class Node {
+    static final long MIN_QUARANTINE_MILLIS = 1000L;
+    static final long MAX_QUARANTINE_MILLIS = 30 * 60 * 1000L;
+    static final double LATENCY_DECAY_MILLIS = 10_000;
+
+    private final String url;
+    private int failedAttempts;
+    private long quarantinedUntil;
+    private volatile CircuitBreaker circuitBreaker;
+    private volatile String id;
+    private volatile String zone;
+    private int inFlight;
+    private double latencyMillis;
+    private long latencyUpdatedAt;
+
+    public Node(String url) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the Elasticsearch node id, if known from sniffing
+     */
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the availability zone of the node, if known
+     */
+    public String getZone() {
+        return zone;
+    }
+
+    void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public synchronized boolean isQuarantined(long nowMillis) {
+        return failedAttempts > 0 && nowMillis < quarantinedUntil;
+    }
+
+    synchronized long getQuarantinedUntil() {
+        return quarantinedUntil;
+    }
+
+    synchronized int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    synchronized void markFailed(long nowMillis) {
+        failedAttempts++;
+        long quarantineMillis = min(MIN_QUARANTINE_MILLIS << min(failedAttempts - 1, 30), MAX_QUARANTINE_MILLIS);
+        quarantinedUntil = nowMillis + quarantineMillis;
+    }
+
+    synchronized void markAlive() {
+        failedAttempts = 0;
+        quarantinedUntil = 0;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized void requestStarted() {
+        inFlight++;
+    }
+
+    synchronized void requestAbandoned() {
+        inFlight = max(0, inFlight - 1);
+    }
+
+    synchronized void requestCompleted(long nowMillis, Long latencyMillis) {
+        inFlight = max(0, inFlight - 1);
+        if (latencyMillis != null) {
+            observeLatency(nowMillis, latencyMillis);
+        }
+    }
+
+    /**
+     * @return the load of the node: the moving average of the latency, weighted by the requests in flight.
+     * The average decays while the node does not answer requests, so that idle nodes are tried again.
+     */
+    public synchronized double getLoad(long nowMillis) {
+        observeLatency(nowMillis, 0);
+        return (latencyMillis + 1) * (inFlight + 1);
+    }
+
+    private void observeLatency(long nowMillis, long sampleMillis) {
+        if (sampleMillis > latencyMillis) {
+            // react to a slow node immediately, recover slowly
+            latencyMillis = sampleMillis;
+        } else {
+            double weight = exp(-max(0, nowMillis - latencyUpdatedAt) / LATENCY_DECAY_MILLIS);
+            latencyMillis = latencyMillis * weight + sampleMillis * (1 - weight);
+        }
+        latencyUpdatedAt = max(latencyUpdatedAt, nowMillis);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Node node = (Node) o;
+
+        return url.equals(node.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Node{" +
+                "url='" + url + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,241 @@
+package de.otto.flummi.util;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * The nodes of an Elasticsearch cluster. Requests are spread across all nodes round-robin or, if enabled,
+ * to the less loaded of two randomly chosen nodes; nodes that failed are skipped until their quarantine is over.
+ * If a local zone is set, nodes in that zone are preferred and nodes in other zones are only used on failure.
+ */
+public class NodePool {
+
+    public static final Logger LOG = getLogger(NodePool.class);
+
+    private final LongSupplier clock;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private volatile List<Node> nodes;
+    private volatile CircuitBreakerPolicy circuitBreakerPolicy;
+    private volatile boolean latencyAware;
+    private volatile String localZone;
+
+    public NodePool(List<String> nodeUrls) {
+        this(nodeUrls, System::currentTimeMillis);
+    }
+
+    NodePool(List<String> nodeUrls, LongSupplier clock) {
+        if (nodeUrls == null || nodeUrls.isEmpty()) {
+            throw new IllegalArgumentException("at least one node url is required");
+        }
+        this.clock = clock;
+        this.nodes = toNodes(nodeUrls, Collections.emptyList());
+    }
+
+    /**
+     * Tracks error rate and latency of every node with a circuit breaker, see {@link CircuitBreakerPolicy}.
+     *
+     * @param circuitBreakerPolicy the policy or null to disable circuit breakers
+     */
+    public synchronized void setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        this.circuitBreakerPolicy = circuitBreakerPolicy;
+        nodes.forEach(node -> node.setCircuitBreaker(circuitBreakerPolicy != null ? new CircuitBreaker(circuitBreakerPolicy) : null));
+    }
+
+    /**
+     * Sends each request to the less loaded of two randomly chosen nodes instead of round-robin. The load of a
+     * node is the moving average of its latency weighted by the number of requests in flight, see {@link Node#getLoad(long)}.
+     */
+    public void setLatencyAware(boolean latencyAware) {
+        this.latencyAware = latencyAware;
+    }
+
+    /**
+     * Prefers nodes in the given zone. The zones of the nodes are set by {@link #setZone(String, String)}
+     * or by the {@link Sniffer}.
+     *
+     * @param localZone the zone of this client or null to ignore zones
+     */
+    public void setLocalZone(String localZone) {
+        this.localZone = localZone;
+    }
+
+    public String getLocalZone() {
+        return localZone;
+    }
+
+    /**
+     * Sets the zone of the node with the given url.
+     */
+    public void setZone(String nodeUrl, String zone) {
+        Node node = new Node(nodeUrl);
+        nodes.stream().filter(node::equals).forEach(n -> n.setZone(zone));
+    }
+
+    /**
+     * @return the search preference that makes Elasticsearch prefer shard copies in the local zone, or null if no
+     * local zone is set. If the ids of the local nodes are known, they are preferred, otherwise the shard copies
+     * on the coordinating node.
+     */
+    public String localPreference() {
+        String localZone = this.localZone;
+        if (localZone == null) {
+            return null;
+        }
+        List<String> localNodeIds = nodes.stream()
+                .filter(node -> localZone.equals(node.getZone()) && node.getId() != null)
+                .map(Node::getId)
+                .collect(toList());
+        return localNodeIds.isEmpty() ? "_local" : "_prefer_nodes:" + String.join(",", localNodeIds);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Replaces the nodes of this pool. Nodes that are already known keep their quarantine state.
+     */
+    public synchronized void setNodes(List<String> nodeUrls) {
+        if (nodeUrls == null || nodeUrls.isEmpty()) {
+            throw new IllegalArgumentException("at least one node url is required");
+        }
+        List<Node> newNodes = toNodes(nodeUrls, this.nodes);
+        if (!newNodes.equals(this.nodes)) {
+            LOG.info("updating nodes from {} to {}", this.nodes, newNodes);
+        }
+        newNodes.stream()
+                .filter(node -> !this.nodes.contains(node))
+                .forEach(node -> node.setCircuitBreaker(circuitBreakerPolicy != null ? new CircuitBreaker(circuitBreakerPolicy) : null));
+        this.nodes = newNodes;
+    }
+
+    private static List<Node> toNodes(List<String> nodeUrls, List<Node> knownNodes) {
+        return Collections.unmodifiableList(nodeUrls.stream()
+                .map(Node::new)
+                .distinct()
+                .map(node -> knownNodes.stream().filter(node::equals).findFirst().orElse(node))
+                .collect(toList()));
+    }
+
+    /**
+     * @return The nodes a request should be sent to, in the order they should be tried. If all nodes are
+     * quarantined, only the node whose quarantine ends first is returned. Nodes with an open circuit breaker
+     * are never returned, so the result is empty if the breakers of all nodes are open.
+     */
+    public List<Node> nodesForRequest() {
+        List<Node> currentNodes = this.nodes;
+        long now = clock.getAsLong();
+        int offset = Math.floorMod(roundRobin.getAndIncrement(), currentNodes.size());
+        List<Node> permitted = new ArrayList<>(currentNodes.size());
+        List<Node> result = new ArrayList<>(currentNodes.size());
+        for (int i = 0; i < currentNodes.size(); i++) {
+            Node node = currentNodes.get((offset + i) % currentNodes.size());
+            if (isRequestPermitted(node, now)) {
+                permitted.add(node);
+                if (!node.isQuarantined(now)) {
+                    result.add(node);
+                }
+            }
+        }
+        if (result.isEmpty() && !permitted.isEmpty()) {
+            return singletonList(permitted.stream()
+                    .min(Comparator.comparingLong(Node::getQuarantinedUntil))
+                    .get());
+        }
+        String localZone = this.localZone;
+        if (localZone != null) {
+            List<Node> local = result.stream().filter(node -> localZone.equals(node.getZone())).collect(toList());
+            if (!local.isEmpty()) {
+                List<Node> remote = result.stream().filter(node -> !localZone.equals(node.getZone())).collect(toList());
+                selectNode(local, now);
+                local.addAll(remote);
+                return local;
+            }
+        }
+        selectNode(result, now);
+        return result;
+    }
+
+    private void selectNode(List<Node> nodes, long now) {
+        if (latencyAware && nodes.size() > 1) {
+            moveLessLoadedOfTwoToFront(nodes, now);
+        }
+    }
+
+    private static void moveLessLoadedOfTwoToFront(List<Node> nodes, long now) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(nodes.size());
+        int second = random.nextInt(nodes.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        int chosen = nodes.get(first).getLoad(now) <= nodes.get(second).getLoad(now) ? first : second;
+        nodes.add(0, nodes.remove(chosen));
+    }
+
+    /**
+     * Asks the circuit breaker of the node for permission to send a request. Every permitted request must either
+     * be completed by {@link #onRequestComplete(Node, boolean, long)} or released by {@link #releasePermission(Node)}.
+     */
+    public boolean tryAcquirePermission(Node node) {
+        CircuitBreaker circuitBreaker = node.getCircuitBreaker();
+        if (circuitBreaker == null || circuitBreaker.tryAcquirePermission(clock.getAsLong())) {
+            node.requestStarted();
+            return true;
+        }
+        return false;
+    }
+
+    public void releasePermission(Node node) {
+        node.requestAbandoned();
+        CircuitBreaker circuitBreaker = node.getCircuitBreaker();
+        if (circuitBreaker != null) {
+            circuitBreaker.releasePermission();
+        }
+    }
+
+    /**
+     * Records the outcome of a request in the load statistics and the circuit breaker of the node.
+     */
+    public void onRequestComplete(Node node, boolean failed, long latencyMillis) {
+        node.requestCompleted(clock.getAsLong(), failed ? null : latencyMillis);
+        CircuitBreaker circuitBreaker = node.getCircuitBreaker();
+        if (circuitBreaker != null) {
+            long now = clock.getAsLong();
+            CircuitBreaker.State before = circuitBreaker.getState(now);
+            circuitBreaker.onComplete(now, failed, latencyMillis);
+            CircuitBreaker.State after = circuitBreaker.getState(now);
+            if (before != after) {
+                LOG.warn("circuit breaker of {} changed from {} to {}", node.getUrl(), before, after);
+            }
+        }
+    }
+
+    private static boolean isRequestPermitted(Node node, long now) {
+        CircuitBreaker circuitBreaker = node.getCircuitBreaker();
+        return circuitBreaker == null || circuitBreaker.isRequestPermitted(now);
+    }
+
+    public void markFailed(Node node) {
+        node.markFailed(clock.getAsLong());
+        LOG.warn("quarantined {} after {} failed attempt(s)", node.getUrl(), node.getFailedAttempts());
+    }
+
+    public void markAlive(Node node) {
+        if (node.getFailedAttempts() > 0) {
+            LOG.info("{} is alive again", node.getUrl());
+        }
+        node.markAlive();
+    }
+}
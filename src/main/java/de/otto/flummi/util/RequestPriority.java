@@ -0,0 +1,22 @@
+package de.otto.flummi.util;
+
+import org.asynchttpclient.BoundRequestBuilder;
+
+/**
+ * Priority of a request. Requests of different priorities can get separate connection pools and
+ * concurrency limits in {@link HttpClientWrapper}, so background traffic cannot starve interactive requests.
+ * Bulk, force merge, reindex and by-query requests are BACKGROUND by default, all other requests INTERACTIVE.
+ */
+public enum RequestPriority {
+    INTERACTIVE, BACKGROUND;
+
+    /**
+     * Sets this priority on a request prepared by {@link HttpClientWrapper}. Other requests are left unchanged.
+     */
+    public BoundRequestBuilder applyTo(BoundRequestBuilder boundRequestBuilder) {
+        if (boundRequestBuilder instanceof RoutingRequestBuilder) {
+            return ((RoutingRequestBuilder) boundRequestBuilder).setPriority(this);
+        }
+        return boundRequestBuilder;
+    }
+}
@@ -0,0 +1,117 @@
+package de.otto.flummi.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import org.asynchttpclient.Response;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.lang.Math.min;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Decides whether a failed request is sent again and how long to wait before doing so. Requests are retried
+ * if Elasticsearch rejected them because of overload (429), if a node is not available (502, 503, 504) or if
+ * the connection failed. By default, only idempotent requests (search, get, mget, count, exists) are retried.
+ * The backoff grows exponentially and is randomized ("full jitter"), so that clients do not retry in lockstep.
+ */
+public class RetryPolicy {
+
+    public static final RetryPolicy NO_RETRIES = new RetryPolicy(0, 0, 0);
+
+    static final Set<String> RETRYABLE_ERROR_TYPES = unmodifiableSet(new HashSet<>(Arrays.asList(
+            "es_rejected_execution_exception",
+            "node_not_connected_exception",
+            "node_disconnected_exception",
+            "connect_transport_exception",
+            "no_shard_available_action_exception")));
+
+    private static final Gson GSON = new Gson();
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private boolean retryNonIdempotentRequests;
+
+    public RetryPolicy(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Also retry requests that are not idempotent, e.g. bulk or index requests. Only use this if sending a
+     * request twice does no harm, e.g. because documents are indexed with explicit ids.
+     */
+    public RetryPolicy setRetryNonIdempotentRequests(boolean retryNonIdempotentRequests) {
+        this.retryNonIdempotentRequests = retryNonIdempotentRequests;
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    boolean shouldRetry(RoutingRequestBuilder request, Response response, int retries) {
+        return retries < maxRetries
+                && (request.isIdempotent() || retryNonIdempotentRequests)
+                && isRetryable(response);
+    }
+
+    boolean shouldRetry(RoutingRequestBuilder request, Throwable throwable, int retries) {
+        return retries < maxRetries
+                && (request.isIdempotent() || retryNonIdempotentRequests)
+                && isRetryable(throwable);
+    }
+
+    long backoffMillis(int retries) {
+        long exponentialBackoff = min(maxBackoffMillis, initialBackoffMillis << min(retries, 30));
+        return exponentialBackoff > 0 ? ThreadLocalRandom.current().nextLong(exponentialBackoff + 1) : 0;
+    }
+
+    static boolean isRetryable(Response response) {
+        int statusCode = response.getStatusCode();
+        if (statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504) {
+            return !isPermanentCircuitBreakerException(errorOf(response));
+        }
+        if (statusCode >= 500) {
+            JsonObject error = errorOf(response);
+            return error != null && error.has("type") && RETRYABLE_ERROR_TYPES.contains(error.get("type").getAsString());
+        }
+        return false;
+    }
+
+    static boolean isRetryable(Throwable throwable) {
+        return throwable instanceof IOException;
+    }
+
+    static boolean isNodeFailure(Response response) {
+        return isNodeFailure(response.getStatusCode());
+    }
+
+    static boolean isNodeFailure(int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    private static boolean isPermanentCircuitBreakerException(JsonObject error) {
+        return error != null
+                && error.has("type") && "circuit_breaking_exception".equals(error.get("type").getAsString())
+                && error.has("durability") && "PERMANENT".equals(error.get("durability").getAsString());
+    }
+
+    private static JsonObject errorOf(Response response) {
+        try {
+            JsonObject body = GSON.fromJson(response.getResponseBody(), JsonObject.class);
+            JsonElement error = body != null ? body.get("error") : null;
+            return error != null && error.isJsonObject() ? error.getAsJsonObject() : null;
+        } catch (JsonSyntaxException | IllegalStateException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package de.otto.flummi.util;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps a custom handler for one attempt of a {@link RoutingRequestBuilder}. It records the status code for the
+ * circuit breakers and limiters and holds back a failure before the response started, so that the request can
+ * still be sent to another node. A failure is reported to the delegate only once for all attempts.
+ */
+class RoutingAsyncHandler<T> implements AsyncHandler<T> {
+    private final AsyncHandler<T> delegate;
+    private final AtomicBoolean failureReported;
+    private volatile int statusCode;
+    private volatile boolean forwarded;
+
+    RoutingAsyncHandler(AsyncHandler<T> delegate, AtomicBoolean failureReported) {
+        this.delegate = delegate;
+        this.failureReported = failureReported;
+    }
+
+    /**
+     * @return a handler for the delegate that also passes the body as a stream if the delegate reads it as one
+     */
+    static <T> RoutingAsyncHandler<T> forDelegate(AsyncHandler<T> delegate, AtomicBoolean failureReported) {
+        return delegate instanceof StreamedAsyncHandler
+                ? new Streamed<>((StreamedAsyncHandler<T>) delegate, failureReported)
+                : new RoutingAsyncHandler<>(delegate, failureReported);
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true if the delegate has seen this attempt, so it must not be sent again
+     */
+    boolean isForwarded() {
+        return forwarded;
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+        statusCode = responseStatus.getStatusCode();
+        forwarded = true;
+        return delegate.onStatusReceived(responseStatus);
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) throws Exception {
+        return delegate.onHeadersReceived(headers);
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+        return delegate.onBodyPartReceived(bodyPart);
+    }
+
+    @Override
+    public State onTrailingHeadersReceived(HttpHeaders headers) throws Exception {
+        return delegate.onTrailingHeadersReceived(headers);
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        if (forwarded && failureReported.compareAndSet(false, true)) {
+            delegate.onThrowable(t);
+        }
+    }
+
+    @Override
+    public T onCompleted() throws Exception {
+        forwarded = true;
+        return delegate.onCompleted();
+    }
+
+    private static class Streamed<T> extends RoutingAsyncHandler<T> implements StreamedAsyncHandler<T> {
+        private final StreamedAsyncHandler<T> delegate;
+
+        Streamed(StreamedAsyncHandler<T> delegate, AtomicBoolean failureReported) {
+            super(delegate, failureReported);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public State onStream(Publisher<HttpResponseBodyPart> publisher) {
+            return delegate.onStream(publisher);
+        }
+    }
+}
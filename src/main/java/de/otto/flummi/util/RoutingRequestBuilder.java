@@ -0,0 +1,522 @@
+package de.otto.flummi.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.resolver.NameResolver;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Param;
+import org.asynchttpclient.Realm;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.SignatureCalculator;
+import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.request.body.generator.BodyGenerator;
+import org.asynchttpclient.request.body.multipart.Part;
+import org.asynchttpclient.uri.Uri;
+import org.reactivestreams.Publisher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request builder returned by {@link HttpClientWrapper}. It records the request settings and replays them
+ * on a request prepared for the node chosen by the wrapper, so the same request can be sent to another
+ * node if the first one fails. Bodies read from an InputStream, a ByteBuffer or a list of byte arrays are
+ * buffered, so they can be sent more than once. Settings that cannot be replayed, like the URL, the method
+ * or a Publisher body, fail with an UnsupportedOperationException.
+ */
+public class RoutingRequestBuilder extends BoundRequestBuilder {
+    private static final Pattern IDEMPOTENT_POST = Pattern.compile("(^|/)(_search|_mget|_count)$");
+    private static final Pattern HEDGEABLE_POST = Pattern.compile("(^|/)(_search|_mget)$");
+    private static final Pattern DOCUMENT_GET = Pattern.compile("^/[^_/][^/]*/[^/]+/[^_/][^/]*$");
+    private static final Pattern BACKGROUND = Pattern.compile("(^|/)(_bulk|_forcemerge|_reindex|_update_by_query|_delete_by_query)$");
+    private static final Pattern SUPPORTS_PREFERENCE = Pattern.compile("(^|/)(_search|_mget|_count)$");
+    private static final Pattern SUPPORTS_TIMEOUT = Pattern.compile("(^|/)(_search|_bulk)$");
+
+    private final HttpClientWrapper httpClient;
+    private final String method;
+    private final String url;
+    private final BiFunction<AsyncHttpClient, String, BoundRequestBuilder> prepare;
+    private final List<Consumer<BoundRequestBuilder>> settings = new ArrayList<>();
+    private String stringBody;
+    private byte[] byteBody;
+    private Consumer<BoundRequestBuilder> otherBody;
+    private Charset charset;
+    private volatile byte[] gzippedBody;
+    private Integer requestTimeout;
+    private volatile Deadline deadline;
+    private RequestPriority priority;
+    private boolean hasPreference;
+    private boolean opensScrollContext;
+
+    RoutingRequestBuilder(HttpClientWrapper httpClient, AsyncHttpClient asyncHttpClient, String method, String url, BiFunction<AsyncHttpClient, String, BoundRequestBuilder> prepare) {
+        super(asyncHttpClient, method, false);
+        this.httpClient = httpClient;
+        this.method = method;
+        this.url = url;
+        this.prepare = prepare;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Fails the request with a {@link DeadlineExceededException} when the deadline expires, even if it is retried.
+     * Search and bulk requests also pass the remaining time to Elasticsearch as timeout parameter; a search that
+     * timed out on Elasticsearch fails with a DeadlineExceededException instead of returning partial hits.
+     */
+    public RoutingRequestBuilder setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * @return the priority set on this request, or the default priority for its endpoint, see {@link RequestPriority}
+     */
+    public RequestPriority getPriority() {
+        if (priority != null) {
+            return priority;
+        }
+        return BACKGROUND.matcher(url).find() ? RequestPriority.BACKGROUND : RequestPriority.INTERACTIVE;
+    }
+
+    public RoutingRequestBuilder setPriority(RequestPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * @return true for read-only requests (search, get, mget, count, exists) which can safely be sent again.
+     * A search with a scroll parameter is not, because every attempt opens a scroll context on the cluster
+     * that is only released when its keep-alive expires.
+     */
+    public boolean isIdempotent() {
+        if (opensScrollContext) {
+            return false;
+        }
+        return "GET".equals(method) || "HEAD".equals(method) || IDEMPOTENT_POST.matcher(url).find();
+    }
+
+    /**
+     * @return true for search, get and multi-get requests, which may be hedged, except for scroll searches.
+     */
+    public boolean isHedgeable() {
+        if (opensScrollContext) {
+            return false;
+        }
+        return ("POST".equals(method) && HEDGEABLE_POST.matcher(url).find())
+                || ("GET".equals(method) && DOCUMENT_GET.matcher(url).matches());
+    }
+
+    @Override
+    public BoundRequestBuilder setUrl(String url) {
+        throw unsupported("setUrl, the URL is chosen per node");
+    }
+
+    @Override
+    public BoundRequestBuilder setUri(Uri uri) {
+        throw unsupported("setUri, the URL is chosen per node");
+    }
+
+    @Override
+    public BoundRequestBuilder setMethod(String method) {
+        throw unsupported("setMethod");
+    }
+
+    @Override
+    public BoundRequestBuilder setAddress(InetAddress address) {
+        return record(b -> b.setAddress(address));
+    }
+
+    @Override
+    public BoundRequestBuilder setLocalAddress(InetAddress address) {
+        return record(b -> b.setLocalAddress(address));
+    }
+
+    @Override
+    public BoundRequestBuilder setVirtualHost(String virtualHost) {
+        return record(b -> b.setVirtualHost(virtualHost));
+    }
+
+    @Override
+    public BoundRequestBuilder clearHeaders() {
+        return record(BoundRequestBuilder::clearHeaders);
+    }
+
+    @Override
+    public BoundRequestBuilder setHeader(CharSequence name, String value) {
+        return record(b -> b.setHeader(name, value));
+    }
+
+    @Override
+    public BoundRequestBuilder setHeader(CharSequence name, Object value) {
+        return record(b -> b.setHeader(name, value));
+    }
+
+    @Override
+    public BoundRequestBuilder setHeader(CharSequence name, Iterable<?> values) {
+        return record(b -> b.setHeader(name, values));
+    }
+
+    @Override
+    public BoundRequestBuilder addHeader(CharSequence name, String value) {
+        return record(b -> b.addHeader(name, value));
+    }
+
+    @Override
+    public BoundRequestBuilder addHeader(CharSequence name, Object value) {
+        return record(b -> b.addHeader(name, value));
+    }
+
+    @Override
+    public BoundRequestBuilder addHeader(CharSequence name, Iterable<?> values) {
+        return record(b -> b.addHeader(name, values));
+    }
+
+    @Override
+    public BoundRequestBuilder setHeaders(HttpHeaders headers) {
+        HttpHeaders copy = headers != null ? headers.copy() : null;
+        return record(b -> b.setHeaders(copy));
+    }
+
+    @Override
+    public BoundRequestBuilder setHeaders(Map<CharSequence, ? extends Iterable<?>> headers) {
+        return record(b -> b.setHeaders(headers));
+    }
+
+    @Override
+    public BoundRequestBuilder setSingleHeaders(Map<CharSequence, ?> headers) {
+        return record(b -> b.setSingleHeaders(headers));
+    }
+
+    @Override
+    public BoundRequestBuilder setCookies(Collection<Cookie> cookies) {
+        return record(b -> b.setCookies(cookies));
+    }
+
+    @Override
+    public BoundRequestBuilder addCookie(Cookie cookie) {
+        return record(b -> b.addCookie(cookie));
+    }
+
+    @Override
+    public BoundRequestBuilder addOrReplaceCookie(Cookie cookie) {
+        return record(b -> b.addOrReplaceCookie(cookie));
+    }
+
+    @Override
+    public BoundRequestBuilder addQueryParam(String name, String value) {
+        hasPreference |= "preference".equals(name);
+        opensScrollContext |= "scroll".equals(name);
+        return record(b -> b.addQueryParam(name, value));
+    }
+
+    @Override
+    public BoundRequestBuilder addQueryParams(List<Param> params) {
+        hasPreference |= contains(params, "preference");
+        opensScrollContext |= contains(params, "scroll");
+        return record(b -> b.addQueryParams(params));
+    }
+
+    @Override
+    public BoundRequestBuilder setQueryParams(Map<String, List<String>> map) {
+        hasPreference = map != null && map.containsKey("preference");
+        opensScrollContext = map != null && map.containsKey("scroll");
+        return record(b -> b.setQueryParams(map));
+    }
+
+    @Override
+    public BoundRequestBuilder setQueryParams(List<Param> params) {
+        hasPreference = contains(params, "preference");
+        opensScrollContext = contains(params, "scroll");
+        return record(b -> b.setQueryParams(params));
+    }
+
+    @Override
+    public BoundRequestBuilder addFormParam(String name, String value) {
+        return record(b -> b.addFormParam(name, value));
+    }
+
+    @Override
+    public BoundRequestBuilder setFormParams(Map<String, List<String>> map) {
+        return record(b -> b.setFormParams(map));
+    }
+
+    @Override
+    public BoundRequestBuilder setFormParams(List<Param> params) {
+        return record(b -> b.setFormParams(params));
+    }
+
+    @Override
+    public BoundRequestBuilder addBodyPart(Part bodyPart) {
+        return record(b -> b.addBodyPart(bodyPart));
+    }
+
+    @Override
+    public BoundRequestBuilder setBodyParts(List<Part> bodyParts) {
+        return record(b -> b.setBodyParts(bodyParts));
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(String body) {
+        this.stringBody = body;
+        this.byteBody = null;
+        this.otherBody = null;
+        return this;
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(byte[] body) {
+        this.byteBody = body;
+        this.stringBody = null;
+        this.otherBody = null;
+        return this;
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(List<byte[]> data) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        data.forEach(bytes -> body.write(bytes, 0, bytes.length));
+        return setBody(body.toByteArray());
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(ByteBuffer data) {
+        byte[] body = new byte[data.remaining()];
+        data.duplicate().get(body);
+        return setBody(body);
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(InputStream stream) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            for (int read = stream.read(buffer); read != -1; read = stream.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return setBody(body.toByteArray());
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(File file) {
+        return setOtherBody(b -> b.setBody(file));
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(BodyGenerator bodyGenerator) {
+        return setOtherBody(b -> b.setBody(bodyGenerator));
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(Publisher<ByteBuf> publisher) {
+        throw unsupported("a Publisher body, it cannot be sent to more than one node");
+    }
+
+    @Override
+    public BoundRequestBuilder setBody(Publisher<ByteBuf> publisher, long contentLength) {
+        throw unsupported("a Publisher body, it cannot be sent to more than one node");
+    }
+
+    @Override
+    public BoundRequestBuilder setProxyServer(ProxyServer proxyServer) {
+        return record(b -> b.setProxyServer(proxyServer));
+    }
+
+    @Override
+    public BoundRequestBuilder setProxyServer(ProxyServer.Builder proxyServerBuilder) {
+        return setProxyServer(proxyServerBuilder.build());
+    }
+
+    @Override
+    public BoundRequestBuilder setRealm(Realm.Builder realm) {
+        return setRealm(realm.build());
+    }
+
+    @Override
+    public BoundRequestBuilder setRealm(Realm realm) {
+        return record(b -> b.setRealm(realm));
+    }
+
+    @Override
+    public BoundRequestBuilder setFollowRedirect(boolean followRedirect) {
+        return record(b -> b.setFollowRedirect(followRedirect));
+    }
+
+    @Override
+    public BoundRequestBuilder setCharset(Charset charset) {
+        this.charset = charset;
+        return record(b -> b.setCharset(charset));
+    }
+
+    @Override
+    public BoundRequestBuilder setRequestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return record(b -> b.setRequestTimeout(requestTimeout));
+    }
+
+    @Override
+    public BoundRequestBuilder setReadTimeout(int readTimeout) {
+        return record(b -> b.setReadTimeout(readTimeout));
+    }
+
+    @Override
+    public BoundRequestBuilder setRangeOffset(long rangeOffset) {
+        return record(b -> b.setRangeOffset(rangeOffset));
+    }
+
+    @Override
+    public BoundRequestBuilder setChannelPoolPartitioning(ChannelPoolPartitioning channelPoolPartitioning) {
+        return record(b -> b.setChannelPoolPartitioning(channelPoolPartitioning));
+    }
+
+    @Override
+    public BoundRequestBuilder setNameResolver(NameResolver<InetAddress> nameResolver) {
+        return record(b -> b.setNameResolver(nameResolver));
+    }
+
+    @Override
+    public BoundRequestBuilder setSignatureCalculator(SignatureCalculator signatureCalculator) {
+        return record(b -> b.setSignatureCalculator(signatureCalculator));
+    }
+
+    /**
+     * Not supported, the request is only built for the node it is sent to.
+     */
+    @Override
+    public Request build() {
+        throw unsupported("build, the request is built per node");
+    }
+
+    @Override
+    public ListenableFuture<Response> execute() {
+        return new ListenableCompletableFuture<>(httpClient.execute(this));
+    }
+
+    /**
+     * Sends the request with a custom handler. The handler only sees the attempt whose response is used: the
+     * request fails over to another node if the connection to a node fails, but it is neither hedged nor
+     * retried after a response was received, because the handler may already have consumed it.
+     */
+    @Override
+    public <T> ListenableFuture<T> execute(AsyncHandler<T> handler) {
+        return new ListenableCompletableFuture<>(httpClient.execute(this, handler));
+    }
+
+    BoundRequestBuilder prepareFor(Node node) {
+        BoundRequestBuilder boundRequestBuilder = httpClient.prepareForNode(prepare, getPriority(), node.getUrl() + url);
+        settings.forEach(s -> s.accept(boundRequestBuilder));
+        Deadline deadline = this.deadline;
+        if (deadline != null) {
+            int remainingMillis = (int) Math.max(1, Math.min(Integer.MAX_VALUE, deadline.remainingMillis()));
+            boundRequestBuilder.setRequestTimeout(requestTimeout != null ? Math.min(requestTimeout, remainingMillis) : remainingMillis);
+            if (SUPPORTS_TIMEOUT.matcher(url).find()) {
+                boundRequestBuilder.addQueryParam("timeout", remainingMillis + "ms");
+            }
+        }
+        if (!hasPreference && supportsPreference()) {
+            String preference = httpClient.getNodePool().localPreference();
+            if (preference != null) {
+                boundRequestBuilder.addQueryParam("preference", preference);
+            }
+        }
+        if (httpClient.isCompressResponses()) {
+            boundRequestBuilder.setHeader(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+        }
+        Integer gzipThreshold = httpClient.getGzipRequestBodyThreshold();
+        if (gzipThreshold != null && otherBody == null && bodyBytes().length >= gzipThreshold) {
+            boundRequestBuilder.setHeader(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+            boundRequestBuilder.setBody(gzippedBody());
+        } else if (stringBody != null) {
+            boundRequestBuilder.setBody(stringBody);
+        } else if (byteBody != null) {
+            boundRequestBuilder.setBody(byteBody);
+        } else if (otherBody != null) {
+            otherBody.accept(boundRequestBuilder);
+        }
+        return boundRequestBuilder;
+    }
+
+    private RoutingRequestBuilder record(Consumer<BoundRequestBuilder> setting) {
+        settings.add(setting);
+        return this;
+    }
+
+    private RoutingRequestBuilder setOtherBody(Consumer<BoundRequestBuilder> body) {
+        this.otherBody = body;
+        this.stringBody = null;
+        this.byteBody = null;
+        return this;
+    }
+
+    private static boolean contains(List<Param> params, String name) {
+        return params != null && params.stream().anyMatch(p -> name.equals(p.getName()));
+    }
+
+    private static UnsupportedOperationException unsupported(String setting) {
+        return new UnsupportedOperationException("RoutingRequestBuilder does not support " + setting);
+    }
+
+    private boolean supportsPreference() {
+        return SUPPORTS_PREFERENCE.matcher(url).find() || ("GET".equals(method) && DOCUMENT_GET.matcher(url).matches());
+    }
+
+    private byte[] bodyBytes() {
+        if (stringBody != null) {
+            return stringBody.getBytes(charset != null ? charset : StandardCharsets.UTF_8);
+        }
+        return byteBody != null ? byteBody : new byte[0];
+    }
+
+    private byte[] gzippedBody() {
+        byte[] gzipped = gzippedBody;
+        if (gzipped == null) {
+            gzipped = gzip(bodyBytes());
+            gzippedBody = gzipped;
+        }
+        return gzipped;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,50 @@
+package de.otto.flummi.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with the same key into one call. A caller that arrives while a call with its key is in
+ * flight gets the result of that call; once the call is completed, the next caller starts a new call, so results are
+ * never served from a cache.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return shared(existing);
+        }
+        CompletableFuture<V> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((value, e) -> {
+            inFlight.remove(key, flight);
+            if (e != null) {
+                flight.completeExceptionally(e);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return shared(flight);
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    // a dependent future, so that a caller cancelling its future does not cancel the call of the other callers
+    private static <V> CompletableFuture<V> shared(CompletableFuture<V> flight) {
+        return flight.thenApply(Function.identity());
+    }
+}
@@ -0,0 +1,180 @@
+package de.otto.flummi.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.asynchttpclient.Response;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.flummi.RequestBuilderUtil.toHttpServerErrorException;
+import static de.otto.flummi.request.RequestConstants.APPL_JSON;
+import static de.otto.flummi.request.RequestConstants.CONTENT_TYPE;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Discovers the HTTP endpoints of the cluster using the nodes info API and updates the nodes of the
+ * {@link NodePool} accordingly. Dedicated master nodes are not added to the pool. The zone of every node is
+ * taken from the node attribute named by zoneAttribute, "zone" by default.
+ */
+public class Sniffer implements Closeable {
+
+    public static final Logger LOG = getLogger(Sniffer.class);
+
+    private final HttpClientWrapper httpClient;
+    private final long sniffIntervalMillis;
+    private final Gson gson = new Gson();
+    private volatile String zoneAttribute = "zone";
+    private ScheduledExecutorService scheduler;
+
+    public Sniffer(HttpClientWrapper httpClient, long sniffIntervalMillis) {
+        this.httpClient = httpClient;
+        this.sniffIntervalMillis = sniffIntervalMillis;
+    }
+
+    public Sniffer setZoneAttribute(String zoneAttribute) {
+        this.zoneAttribute = zoneAttribute;
+        return this;
+    }
+
+    /**
+     * Sniffs the nodes once and then every sniffIntervalMillis until the sniffer is closed.
+     */
+    public synchronized Sniffer start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Sniffer was already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "flummi-sniffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sniffSafely, 0, sniffIntervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Fetches the HTTP endpoints of the cluster and replaces the nodes of the pool with them.
+     *
+     * @return the discovered node urls
+     */
+    public List<String> sniff() {
+        List<Node> sniffedNodes = fetchNodes();
+        List<String> nodeUrls = sniffedNodes.stream().map(Node::getUrl).collect(toList());
+        NodePool nodePool = httpClient.getNodePool();
+        if (nodeUrls.isEmpty()) {
+            LOG.warn("no http nodes found, keeping {}", nodePool.getNodes());
+        } else {
+            nodePool.setNodes(nodeUrls);
+            for (Node node : nodePool.getNodes()) {
+                sniffedNodes.stream().filter(node::equals).findFirst().ifPresent(sniffed -> {
+                    node.setId(sniffed.getId());
+                    node.setZone(sniffed.getZone());
+                });
+            }
+        }
+        return nodeUrls;
+    }
+
+    private void sniffSafely() {
+        try {
+            sniff();
+        } catch (RuntimeException e) {
+            LOG.warn("failed to sniff nodes", e);
+        }
+    }
+
+    private List<Node> fetchNodes() {
+        try {
+            Response response = httpClient.prepareGet("/_nodes/http")
+                    .addHeader(CONTENT_TYPE, APPL_JSON)
+                    .execute().get();
+            if (response.getStatusCode() >= 300) {
+                throw toHttpServerErrorException(response);
+            }
+            JsonObject jsonResponse = gson.fromJson(response.getResponseBody(), JsonObject.class);
+            String scheme = schemeOf(httpClient.getNodePool().getNodes().get(0).getUrl());
+            List<Node> sniffedNodes = new ArrayList<>();
+            JsonElement nodes = jsonResponse.get("nodes");
+            if (nodes == null || !nodes.isJsonObject()) {
+                return sniffedNodes;
+            }
+            for (Map.Entry<String, JsonElement> entry : nodes.getAsJsonObject().entrySet()) {
+                JsonObject node = entry.getValue().getAsJsonObject();
+                JsonElement http = node.get("http");
+                if (http == null || isDedicatedMaster(node)) {
+                    continue;
+                }
+                JsonElement publishAddress = http.getAsJsonObject().get("publish_address");
+                if (publishAddress != null) {
+                    Node sniffed = new Node(scheme + "://" + toHostAndPort(publishAddress.getAsString()));
+                    sniffed.setId(entry.getKey());
+                    sniffed.setZone(zoneOf(node));
+                    sniffedNodes.add(sniffed);
+                }
+            }
+            return sniffedNodes;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String zoneOf(JsonObject node) {
+        JsonElement attributes = node.get("attributes");
+        if (attributes == null || !attributes.isJsonObject()) {
+            return null;
+        }
+        JsonElement zone = attributes.getAsJsonObject().get(zoneAttribute);
+        return zone != null && zone.isJsonPrimitive() ? zone.getAsString() : null;
+    }
+
+    // since 7.10, data nodes may report tiered roles like data_hot or data_content instead of data
+    private static boolean isDedicatedMaster(JsonObject node) {
+        JsonElement rolesElement = node.get("roles");
+        if (rolesElement == null || !rolesElement.isJsonArray()) {
+            return false;
+        }
+        JsonArray roles = rolesElement.getAsJsonArray();
+        boolean master = false;
+        boolean servesRequests = false;
+        for (JsonElement role : roles) {
+            String name = role.getAsString();
+            master |= "master".equals(name);
+            servesRequests |= name.startsWith("data") || "ingest".equals(name);
+        }
+        return master && !servesRequests;
+    }
+
+    // publish_address is either "ip:port" or "hostname/ip:port"
+    static String toHostAndPort(String publishAddress) {
+        int slash = publishAddress.indexOf('/');
+        if (slash < 0) {
+            return publishAddress;
+        }
+        return publishAddress.substring(0, slash) + publishAddress.substring(publishAddress.lastIndexOf(':'));
+    }
+
+    private static String schemeOf(String url) {
+        int schemeEnd = url.indexOf("://");
+        return schemeEnd > 0 ? url.substring(0, schemeEnd) : "http";
+    }
+}
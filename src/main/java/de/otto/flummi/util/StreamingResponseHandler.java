@@ -0,0 +1,230 @@
+package de.otto.flummi.util;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Receives a response whose body is read as a stream while it arrives, see {@link #getBody()}. Body parts are only
+ * requested from the http client while fewer than {@link #MAX_BUFFERED_PARTS} are buffered, so a slow reader makes
+ * the client stop reading from the connection instead of blocking its I/O thread or buffering the whole body.
+ */
+public class StreamingResponseHandler implements StreamedAsyncHandler<Response> {
+    public static final int MAX_BUFFERED_PARTS = 16;
+
+    private static final Object END = new Object();
+
+    private final Response.ResponseBuilder responseBuilder = new Response.ResponseBuilder();
+    private final CompletableFuture<Response> response = new CompletableFuture<>();
+    // byte[] parts, followed by END or the failure of the request
+    private final BlockingQueue<Object> parts = new LinkedBlockingQueue<>();
+    private final Body body = new Body();
+    private volatile Subscription subscription;
+    private volatile boolean streamed;
+    private volatile Throwable failure;
+
+    /**
+     * @return the status and headers of the response, completed as soon as they arrive
+     */
+    public CompletableFuture<Response> getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the body of the response. Reading blocks until the next part arrives; within a {@link ForkJoinPool}
+     * the pool may start another thread meanwhile.
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * @return the failure of the request, or null
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stops receiving the body if it was not read to the end.
+     */
+    public void abort() {
+        body.close();
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) {
+        responseBuilder.accumulate(responseStatus);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) {
+        responseBuilder.accumulate(headers);
+        response.complete(responseBuilder.build());
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onStream(Publisher<HttpResponseBodyPart> publisher) {
+        streamed = true;
+        publisher.subscribe(new BodySubscriber());
+        return State.CONTINUE;
+    }
+
+    // only called if the body is not passed as a stream, the parts are then buffered without a bound
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+        parts.add(bodyPart.getBodyPartBytes());
+        return State.CONTINUE;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        failure = t;
+        response.completeExceptionally(t);
+        parts.add(t);
+    }
+
+    @Override
+    public Response onCompleted() {
+        Response status = responseBuilder.build();
+        response.complete(status);
+        // a streamed body ends with its publisher, which may still hold parts the reader did not request yet
+        if (!streamed) {
+            parts.add(END);
+        }
+        return status;
+    }
+
+    private class BodySubscriber implements Subscriber<HttpResponseBodyPart> {
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            if (body.closed) {
+                s.cancel();
+            } else {
+                s.request(MAX_BUFFERED_PARTS);
+            }
+        }
+
+        @Override
+        public void onNext(HttpResponseBodyPart bodyPart) {
+            parts.add(bodyPart.getBodyPartBytes());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            onThrowable(t);
+        }
+
+        @Override
+        public void onComplete() {
+            parts.add(END);
+        }
+    }
+
+    private class Body extends InputStream {
+        private byte[] part = new byte[0];
+        private int position;
+        private boolean ended;
+        private volatile boolean closed;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == part.length) {
+                if (!nextPart()) {
+                    return -1;
+                }
+            }
+            int read = Math.min(len, part.length - position);
+            System.arraycopy(part, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        private boolean nextPart() throws IOException {
+            if (ended || closed) {
+                return false;
+            }
+            Object next = take();
+            if (next == END) {
+                ended = true;
+                return false;
+            }
+            if (next instanceof Throwable) {
+                ended = true;
+                throw new IOException((Throwable) next);
+            }
+            part = (byte[]) next;
+            position = 0;
+            Subscription s = subscription;
+            if (s != null) {
+                s.request(1);
+            }
+            return true;
+        }
+
+        private Object take() throws IOException {
+            NextPart next = new NextPart();
+            try {
+                ForkJoinPool.managedBlock(next);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return next.part;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Subscription s = subscription;
+            if (s != null && !ended) {
+                s.cancel();
+            }
+        }
+    }
+
+    private class NextPart implements ForkJoinPool.ManagedBlocker {
+        private Object part;
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (part == null) {
+                part = parts.take();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return part != null || (part = parts.poll()) != null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.otto.flummi.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds json trees whose field names, and optionally short string values, are shared through a dictionary, so that
+ * the sources of many hits with the same fields do not each hold their own copy of every name. Names and values are
+ * bounded separately, so that many distinct values cannot crowd out the names: once one part is full, new strings of
+ * that kind are no longer shared.
+ */
+public class StringDictionary {
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    public static final int MAX_VALUE_LENGTH = 64;
+
+    private final ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final boolean deduplicateValues;
+
+    /**
+     * @param maxSize           the maximum number of names, and of values, in the dictionary
+     * @param deduplicateValues also share string values of at most {@link #MAX_VALUE_LENGTH} characters, which pays
+     *                          off for values with few distinct strings, e.g. brands or colors
+     */
+    public StringDictionary(int maxSize, boolean deduplicateValues) {
+        this.maxSize = maxSize;
+        this.deduplicateValues = deduplicateValues;
+    }
+
+    /**
+     * @return the instance of the name in the dictionary, or the name itself if the names of the dictionary are full
+     */
+    public String intern(String name) {
+        return intern(names, name);
+    }
+
+    /**
+     * @return the number of names and values in the dictionary
+     */
+    public int size() {
+        return names.size() + values.size();
+    }
+
+    private String intern(ConcurrentMap<String, String> strings, String string) {
+        String existing = strings.get(string);
+        if (existing != null) {
+            return existing;
+        }
+        if (strings.size() >= maxSize) {
+            return string;
+        }
+        existing = strings.putIfAbsent(string, string);
+        return existing != null ? existing : string;
+    }
+
+    public JsonElement parse(Reader json) {
+        try {
+            JsonReader reader = new JsonReader(json);
+            reader.setLenient(true);
+            return read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next value of the reader as json tree.
+     */
+    public JsonElement read(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                JsonObject object = new JsonObject();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    object.add(intern(reader.nextName()), read(reader));
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                JsonArray array = new JsonArray();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    array.add(read(reader));
+                }
+                reader.endArray();
+                return array;
+            case STRING:
+                String value = reader.nextString();
+                return new JsonPrimitive(deduplicateValues && value.length() <= MAX_VALUE_LENGTH ? intern(values, value) : value);
+            case NUMBER:
+                // parsed lazily and serialized with its literal, like Gson's own parser
+                return new JsonPrimitive(new LazilyParsedNumber(reader.nextString()));
+            case BOOLEAN:
+                return new JsonPrimitive(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return JsonNull.INSTANCE;
+            default:
+                throw new IllegalStateException("Unexpected json token " + reader.peek());
+        }
+    }
+}
@@ -39,6 +39,22 @@ public class CountRequestBuilderTest {
         assertThat(result, is(42L));
     }
 
+    @Test
+    public void shouldExecuteCountQueryAsync() throws Exception {
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.prepareGet("/product-index/_count")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture(new MockResponse(200, "OK", "{\"count\" : 42}")));
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+
+        // when
+        long result = testee.executeAsync().get();
+
+        // then
+        verify(httpClient).prepareGet("/product-index/_count");
+        assertThat(result, is(42L));
+    }
+
     @Test
     public void shouldBuildCorrectCountQueryWithTwoTypes() throws Exception {
         BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
@@ -12,8 +12,10 @@ import org.mockito.Mockito;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -99,6 +101,7 @@ public class FlummiTest {
         final BoundRequestBuilder boundRequestBuilder = mock(BoundRequestBuilder.class);
         when(asyncHttpClient.prepareGet(anyString())).thenReturn(boundRequestBuilder);
         final ListenableFuture listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.execute()).thenReturn(listenableFuture);
         when(boundRequestBuilder.setBody(anyString())).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
@@ -121,6 +124,7 @@ public class FlummiTest {
         final BoundRequestBuilder boundRequestBuilder = mock(BoundRequestBuilder.class);
         when(asyncHttpClient.preparePost(anyString())).thenReturn(boundRequestBuilder);
         final ListenableFuture listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.execute()).thenReturn(listenableFuture);
         when(boundRequestBuilder.setBody(anyString())).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilder);
@@ -145,12 +149,14 @@ public class FlummiTest {
         final BoundRequestBuilder boundRequestBuilder = mock(BoundRequestBuilder.class);
         when(asyncHttpClient.prepareGet(anyString())).thenReturn(boundRequestBuilder);
         final ListenableFuture listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.execute()).thenReturn(listenableFuture);
         final Response response = mock(Response.class);
         when(listenableFuture.get()).thenReturn(response);
         when(response.getStatusCode()).thenReturn(200);
         when(response.getResponseBody()).thenReturn("{\"_id\":\"46711\"}");
+        when(response.getResponseBodyAsStream()).thenReturn(new ByteArrayInputStream("{\"_id\":\"46711\"}".getBytes(StandardCharsets.UTF_8)));
         final GetRequestBuilder getRequestBuilder = client.prepareGet("someIndexName", "someDocumentType", "someProductId");
 
         //When
@@ -166,6 +172,7 @@ public class FlummiTest {
         final BoundRequestBuilder boundRequestBuilder = mock(BoundRequestBuilder.class);
         when(asyncHttpClient.prepareDelete(anyString())).thenReturn(boundRequestBuilder);
         final ListenableFuture listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.execute()).thenReturn(listenableFuture);
         when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
         final Response response = mock(Response.class);
@@ -188,6 +195,7 @@ public class FlummiTest {
         final BoundRequestBuilder boundRequestBuilder = mock(BoundRequestBuilder.class);
         when(asyncHttpClient.prepareGet(anyString())).thenReturn(boundRequestBuilder);
         final ListenableFuture listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.setBody(anyString())).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
@@ -214,6 +222,7 @@ public class FlummiTest {
         when(boundRequestBuilder.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
         final ListenableFuture listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.execute()).thenReturn(listenableFuture);
         final Response response = mock(Response.class);
         when(listenableFuture.get()).thenReturn(response);
@@ -233,6 +242,7 @@ public class FlummiTest {
         // Given
         final BoundRequestBuilder boundRequestBuilder = mock(BoundRequestBuilder.class);
         final ListenableFuture<Response> listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         final Response response = mock(Response.class);
         when(response.getStatusCode()).thenReturn(200);
         when(response.getResponseBody()).thenReturn("{\"status\":\"GREEN\", \"cluster_name\":\"someClusterName\", \"timed_out\":\"someTimedOut\"}");
@@ -259,6 +269,7 @@ public class FlummiTest {
         when(boundRequestBuilder.setBody(anyString())).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilder);
         final ListenableFuture<Response> listenableFuture = mock(ListenableFuture.class);
+        when(listenableFuture.isDone()).thenReturn(true);
         when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
         when(boundRequestBuilder.execute()).thenReturn(listenableFuture);
         final Response response = mock(Response.class);
@@ -15,6 +15,7 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -351,7 +352,17 @@ public class IndicesAdminClientTest {
         indicesAdminClient.pointAliasToCurrentIndex("someAliasName", "someIndexName");
     }
 
+    @Test
+    public void shouldRequestOnlyIndicesWithAlias() throws ExecutionException, InterruptedException, IOException {
+        //Given
+        when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture(new MockResponse(200, "OK", "{\"someIndexName\":{\"aliases\": {\"someAlias\": {}}}}")));
 
+        //When
+        final Optional<String> indexName = indicesAdminClient.getIndexNameForAlias("someAlias");
 
-
-}
\ No newline at end of file
+        //Then
+        assertThat(indexName.get(), is("someIndexName"));
+        verify(boundRequestBuilder).addQueryParam("filter_path", "*.aliases.someAlias,error,status");
+    }
+}
@@ -5,10 +5,12 @@ import io.netty.handler.codec.http.cookie.Cookie;
 import org.asynchttpclient.Response;
 import org.asynchttpclient.uri.Uri;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
@@ -55,7 +57,7 @@ public class MockResponse implements Response {
 
     @Override
     public InputStream getResponseBodyAsStream() {
-        throw new IllegalStateException("Stream not implemented");
+        return new ByteArrayInputStream(responseBody.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
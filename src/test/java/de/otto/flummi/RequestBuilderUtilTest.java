@@ -1,9 +1,19 @@
 package de.otto.flummi;
 
+import org.asynchttpclient.Response;
 import org.testng.annotations.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class RequestBuilderUtilTest {
 
@@ -21,4 +31,42 @@ public class RequestBuilderUtilTest {
     public void shouldBuildUrlWithIndicesAndTypesAndOperation() {
         assertThat(RequestBuilderUtil.buildUrl(new String[]{"someIndexName", "someIndexName2"}, new String[]{"someType", "someType2"}, "someOperation"), is("/someIndexName,someIndexName2/someType,someType2/someOperation"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReadResponseBody() throws IOException {
+        // given
+        Response response = mock(Response.class);
+        when(response.getResponseBodyAsStream()).thenReturn(new ByteArrayInputStream("{\"name\":\"Grüße\"}".getBytes("UTF-8")));
+
+        // when
+        String body = new BufferedReader(RequestBuilderUtil.responseBodyReader(response)).readLine();
+
+        // then
+        assertThat(body, is("{\"name\":\"Grüße\"}"));
+    }
+
+    @Test
+    public void shouldDecompressGzippedResponseBody() throws IOException {
+        // given
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{\"took\":1}".getBytes("UTF-8"));
+        }
+        Response response = mock(Response.class);
+        when(response.getResponseBodyAsStream()).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+
+        // when
+        String body = new BufferedReader(RequestBuilderUtil.responseBodyReader(response)).readLine();
+
+        // then
+        assertThat(body, is("{\"took\":1}"));
+    }
+
+    @Test
+    public void shouldResolveFilterPath() {
+        assertThat(RequestBuilderUtil.resolveFilterPath(null, "errors"), is("errors,error,status"));
+        assertThat(RequestBuilderUtil.resolveFilterPath(new String[]{"took", "hits.total"}, "errors"), is("took,hits.total,error,status"));
+        assertThat(RequestBuilderUtil.resolveFilterPath(new String[]{}, "errors"), is(nullValue()));
+        assertThat(RequestBuilderUtil.resolveFilterPath(null, null), is(nullValue()));
+    }
+}
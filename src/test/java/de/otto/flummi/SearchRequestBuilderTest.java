@@ -7,25 +7,58 @@ import de.otto.flummi.aggregations.TermsBuilder;
 import de.otto.flummi.query.QueryBuilders;
 import de.otto.flummi.request.SearchRequestBuilder;
 import de.otto.flummi.response.AggregationResult;
+import de.otto.flummi.response.HitConsumer;
+import de.otto.flummi.response.HttpServerErrorException;
 import de.otto.flummi.response.ScrollingSearchHits;
+import de.otto.flummi.response.SearchAfterSearchHits;
 import de.otto.flummi.response.SearchHit;
 import de.otto.flummi.response.SearchResponse;
 import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.SingleFlight;
+import de.otto.flummi.util.StreamingResponseHandler;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
 import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static de.otto.flummi.SortOrder.ASC;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.fail;
 
 public class SearchRequestBuilderTest {
 
@@ -144,6 +177,126 @@ public class SearchRequestBuilderTest {
         assertThat(firstHit.getSource(), is(new Gson().fromJson(PRODUCT_JSON, JsonObject.class)));
     }
 
+    @Test
+    public void shouldParseSearchResponseOnResponseExecutorWhenExecutedAsync() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", SEARCH_RESPONSE_WITH_ONE_HIT)));
+        AtomicInteger executedTasks = new AtomicInteger();
+        when(httpClient.getResponseExecutor()).thenReturn(task -> {
+            executedTasks.incrementAndGet();
+            task.run();
+        });
+
+        // when
+        SearchResponse response = searchRequestBuilder.setQuery(createSampleQuery()).executeAsync().get();
+
+        //then
+        verify(boundRequestBuilderMock).setBody("{\"query\":{\"term\":{\"someField\":\"someValue\"}}}");
+        assertThat(executedTasks.get(), is(1));
+        assertThat(response.getHits().getTotalHits(), is(1L));
+        assertThat(response.getHits().iterator().next().getId(), is("P0"));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyOnServerErrorWhenExecutedAsync() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(500, "Internal Server Error", "{}")));
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+
+        // when
+        CompletableFuture<SearchResponse> response = searchRequestBuilder.setQuery(createSampleQuery()).executeAsync();
+
+        //then
+        try {
+            response.get();
+            fail("expected HttpServerErrorException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(HttpServerErrorException.class));
+        }
+    }
+
+    @Test
+    public void shouldAttachIdenticalSearchToSearchInFlight() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        ListenableFuture<Response> responseInFlight = mock(ListenableFuture.class);
+        when(boundRequestBuilderMock.execute()).thenReturn(responseInFlight);
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        when(httpClient.getSearchesInFlight()).thenReturn(new SingleFlight<>());
+
+        // when
+        CompletableFuture<SearchResponse> first = new SearchRequestBuilder(httpClient, "some-index").setQuery(createSampleQuery()).setDeduplicate(true).executeAsync();
+        CompletableFuture<SearchResponse> second = new SearchRequestBuilder(httpClient, "some-index").setQuery(createSampleQuery()).setDeduplicate(true).executeAsync();
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(responseInFlight).addListener(listener.capture(), any());
+        when(responseInFlight.get()).thenReturn(new MockResponse(200, "ok", SEARCH_RESPONSE_WITH_ONE_HIT));
+        listener.getValue().run();
+
+        // then
+        verify(boundRequestBuilderMock, times(1)).execute();
+        assertThat(first.get().getHits().getTotalHits(), is(1L));
+        assertThat(second.get(), is(first.get()));
+    }
+
+    @Test
+    public void shouldThrowHttpServerErrorExceptionOfDeduplicatedSearch() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(400, "bad request", "{\"error\":\"bad query\"}")));
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        when(httpClient.getSearchesInFlight()).thenReturn(new SingleFlight<>());
+
+        // when
+        try {
+            new SearchRequestBuilder(httpClient, "some-index").setQuery(createSampleQuery()).setDeduplicate(true).execute();
+            fail("expected HttpServerErrorException");
+        } catch (HttpServerErrorException e) {
+            //then
+            assertThat(e.getStatusCode(), is(400));
+            assertThat(e.getResponseBody(), is("{\"error\":\"bad query\"}"));
+        }
+    }
+
+    @Test
+    public void shouldNotDeduplicateSearchesWithSourceAdapter() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(mock(ListenableFuture.class));
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        when(httpClient.getSearchesInFlight()).thenReturn(new SingleFlight<>());
+
+        // when
+        new SearchRequestBuilder(httpClient, "some-index").setQuery(createSampleQuery()).setDeduplicate(true)
+                .setSourceAdapter(new Gson().getAdapter(JsonObject.class)).executeAsync();
+        new SearchRequestBuilder(httpClient, "some-index").setQuery(createSampleQuery()).setDeduplicate(true)
+                .setSourceAdapter(new Gson().getAdapter(JsonObject.class)).executeAsync();
+
+        // then
+        verify(boundRequestBuilderMock, times(2)).execute();
+    }
+
     @Test
     public void shouldParseSearchResponseWithFullDocumentsForEsVersion7() throws Exception {
         // given
@@ -426,4 +579,323 @@ public class SearchRequestBuilderTest {
     private JsonObject createSampleQuery() {
         return QueryBuilders.termQuery("someField", "someValue").build();
     }
+
+    @Test
+    public void shouldRequestOnlyParsedFields() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", EMPTY_SEARCH_RESPONSE)));
+
+        // when
+        searchRequestBuilder.setQuery(createSampleQuery()).addAggregation(new TermsBuilder("brands").field("brand")).execute();
+
+        //then
+        verify(boundRequestBuilderMock).addQueryParam("filter_path", "took,timed_out,_shards.failed,_scroll_id,hits.total,hits.max_score,hits.hits._id," +
+                "hits.hits._score,hits.hits._source,hits.hits.fields,hits.hits.sort,aggregations.brands,error,status");
+    }
+
+    @Test
+    public void shouldNotFilterResponseWithoutFilterPaths() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", EMPTY_SEARCH_RESPONSE)));
+
+        // when
+        searchRequestBuilder.setQuery(createSampleQuery()).setFilterPath().execute();
+
+        //then
+        verify(boundRequestBuilderMock, never()).addQueryParam(eq("filter_path"), anyString());
+    }
+
+    @Test
+    public void shouldPassHitsToConsumerWithoutCollectingThem() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute(any(AsyncHandler.class))).thenAnswer(streamedResponse(200, SEARCH_RESPONSE_WITH_ONE_HIT));
+        List<String> events = new ArrayList<>();
+
+        // when
+        SearchResponse response = searchRequestBuilder.setQuery(createSampleQuery()).execute(new HitConsumer() {
+            @Override
+            public void onHit(SearchHit hit) {
+                events.add("hit " + hit.getId());
+            }
+
+            @Override
+            public void onComplete(SearchResponse response) {
+                events.add("complete " + response.getHits().getTotalHits());
+            }
+        });
+
+        //then
+        assertThat(events, contains("hit P0", "complete 1"));
+        assertThat(response.getTookInMillis(), is(1L));
+        assertThat(response.getHits().getTotalHits(), is(1L));
+        assertThat(response.getHits().stream().count(), is(0L));
+    }
+
+    @Test(timeOut = 10_000)
+    public void shouldPassHitsToConsumerWhileTheBodyIsStillReceived() throws Exception {
+        // given
+        ExecutorService ioThread = Executors.newSingleThreadExecutor();
+        List<String> bodyParts = new ArrayList<>();
+        String padding = String.join("", Collections.nCopies(1000, "x"));
+        bodyParts.add("{\"took\":1,\"hits\":{\"total\":200,\"max_score\":1,\"hits\":[");
+        for (int i = 0; i < 200; i++) {
+            bodyParts.add((i > 0 ? "," : "") + "{\"_id\":\"P" + i + "\",\"_source\":{\"description\":\"" + padding + "\"}}");
+        }
+        bodyParts.add("]}}");
+        BodyPartPublisher publisher = new BodyPartPublisher(ioThread, bodyParts);
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute(any(AsyncHandler.class))).thenAnswer(invocation -> {
+            StreamedAsyncHandler<Response> handler = invocation.getArgument(0);
+            ioThread.execute(() -> {
+                try {
+                    receiveStatusAndHeaders(handler, 200);
+                    publisher.onComplete(() -> handler.onCompleted());
+                    handler.onStream(publisher);
+                } catch (Exception e) {
+                    handler.onThrowable(e);
+                }
+            });
+            return mock(ListenableFuture.class);
+        });
+        BoundRequestBuilder otherRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/other-index/_search")).thenReturn(otherRequestBuilderMock);
+        when(otherRequestBuilderMock.setBody(any(String.class))).thenReturn(otherRequestBuilderMock);
+        when(otherRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(otherRequestBuilderMock);
+        when(otherRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(otherRequestBuilderMock);
+        when(otherRequestBuilderMock.execute(any(AsyncHandler.class))).thenAnswer(invocation -> {
+            ioThread.execute(() -> {
+                try {
+                    streamedResponse(200, SEARCH_RESPONSE_WITH_ONE_HIT).answer(invocation);
+                } catch (Throwable e) {
+                    ((AsyncHandler<?>) invocation.getArgument(0)).onThrowable(e);
+                }
+            });
+            return mock(ListenableFuture.class);
+        });
+        List<String> ids = new ArrayList<>();
+        List<String> otherIds = new ArrayList<>();
+        AtomicInteger partsReceivedAtFirstHit = new AtomicInteger();
+
+        // when
+        searchRequestBuilder.setQuery(createSampleQuery()).execute(hit -> {
+            if (ids.isEmpty()) {
+                partsReceivedAtFirstHit.set(publisher.emitted());
+                // blocks the consumer while another request is in flight on the same I/O thread
+                new SearchRequestBuilder(httpClient, "other-index").setQuery(createSampleQuery())
+                        .execute(otherHit -> otherIds.add(otherHit.getId()));
+            }
+            ids.add(hit.getId());
+        });
+
+        //then
+        ioThread.shutdown();
+        assertThat(ids, hasSize(200));
+        assertThat(ids.get(199), is("P199"));
+        assertThat(otherIds, contains("P0"));
+        assertThat(partsReceivedAtFirstHit.get() <= StreamingResponseHandler.MAX_BUFFERED_PARTS + 2, is(true));
+    }
+
+    @Test
+    public void shouldReadErrorFromStreamedBody() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute(any(AsyncHandler.class))).thenAnswer(streamedResponse(400, "{\"error\":\"bad query\"}"));
+
+        // when
+        try {
+            searchRequestBuilder.setQuery(createSampleQuery()).execute(hit -> {
+            });
+            fail();
+        } catch (HttpServerErrorException e) {
+            //then
+            assertThat(e.getStatusCode(), is(400));
+            assertThat(e.getResponseBody(), is("{\"error\":\"bad query\"}"));
+        }
+    }
+
+    @Test
+    public void shouldReportFailureInsteadOfTruncatedStreamedBody() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        IOException connectionReset = new IOException("connection reset");
+        when(boundRequestBuilderMock.execute(any(AsyncHandler.class))).thenAnswer(invocation -> {
+            AsyncHandler<Response> handler = invocation.getArgument(0);
+            receiveStatusAndHeaders(handler, 200);
+            handler.onBodyPartReceived(bodyPart("{\"took\":1,\"hits\":{\"total\":2,\"max_score\":1,\"hits\":[{\"_id\":\"P0\""));
+            handler.onThrowable(connectionReset);
+            return mock(ListenableFuture.class);
+        });
+
+        // when
+        try {
+            searchRequestBuilder.setQuery(createSampleQuery()).execute(hit -> {
+            });
+            fail();
+        } catch (RuntimeException e) {
+            //then
+            assertThat(e.getCause(), is(instanceOf(ExecutionException.class)));
+            assertThat(e.getCause().getCause(), is(connectionReset));
+        }
+    }
+
+    @Test
+    public void shouldPageWithSearchAfterAndTieBreaker() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(
+                new CompletedFuture<>(new MockResponse(200, "ok", "{\"took\":1,\"hits\":{\"total\":3,\"max_score\":null,\"hits\":[" +
+                        "{\"_id\":\"P0\",\"_source\":{},\"sort\":[10,\"P0\"]},{\"_id\":\"P1\",\"_source\":{},\"sort\":[20,\"P1\"]}]}}")),
+                new CompletedFuture<>(new MockResponse(200, "ok", "{\"took\":1,\"hits\":{\"total\":3,\"max_score\":null,\"hits\":[" +
+                        "{\"_id\":\"P2\",\"_source\":{},\"sort\":[30,\"P2\"]}]}}")));
+
+        // when
+        SearchResponse response = searchRequestBuilder.setQuery(createSampleQuery()).addSort("price", ASC).setSize(2)
+                .addAggregation(new TermsBuilder("brands").field("brand"))
+                .setSearchAfterPaging("_id")
+                .execute();
+
+        //then
+        assertThat(response.getHits(), instanceOf(SearchAfterSearchHits.class));
+        assertThat(response.getHits().stream().map(SearchHit::getId).collect(Collectors.toList()), contains("P0", "P1", "P2"));
+        verify(boundRequestBuilderMock).setBody("{\"query\":{\"term\":{\"someField\":\"someValue\"}},\"size\":2," +
+                "\"sort\":[{\"price\":{\"order\":\"asc\"}},{\"_id\":\"asc\"}],\"aggregations\":{\"brands\":{\"terms\":{\"field\":\"brand\"}}}}");
+        verify(boundRequestBuilderMock).setBody("{\"query\":{\"term\":{\"someField\":\"someValue\"}},\"size\":2," +
+                "\"sort\":[{\"price\":{\"order\":\"asc\"}},{\"_id\":\"asc\"}],\"search_after\":[20,\"P1\"]}");
+        verify(boundRequestBuilderMock, times(2)).execute();
+    }
+
+    @Test
+    public void shouldRejectFromWithSearchAfterPaging() throws Exception {
+        // given
+        searchRequestBuilder.setQuery(createSampleQuery()).setFrom(20).setSearchAfterPaging("sku");
+
+        // when
+        try {
+            searchRequestBuilder.execute();
+            fail();
+        } catch (IllegalStateException e) {
+            //then
+            verify(httpClient, never()).preparePost(anyString());
+        }
+    }
+
+    @Test
+    public void shouldNotSendFromWithSearchAfterPaging() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_search")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok",
+                "{\"took\":1,\"hits\":{\"total\":0,\"max_score\":null,\"hits\":[]}}")));
+
+        // when
+        searchRequestBuilder.setQuery(createSampleQuery()).setFrom(0).setSearchAfterPaging("sku").execute();
+
+        //then
+        verify(boundRequestBuilderMock).setBody("{\"query\":{\"term\":{\"someField\":\"someValue\"}}," +
+                "\"sort\":[{\"_score\":\"desc\"},{\"sku\":\"asc\"}]}");
+    }
+
+    private static Answer<ListenableFuture<Response>> streamedResponse(int statusCode, String body) {
+        return invocation -> {
+            AsyncHandler<Response> handler = invocation.getArgument(0);
+            receiveStatusAndHeaders(handler, statusCode);
+            handler.onBodyPartReceived(bodyPart(body));
+            return new CompletedFuture<>(handler.onCompleted());
+        };
+    }
+
+    private static void receiveStatusAndHeaders(AsyncHandler<Response> handler, int statusCode) throws Exception {
+        HttpResponseStatus status = mock(HttpResponseStatus.class);
+        when(status.getStatusCode()).thenReturn(statusCode);
+        handler.onStatusReceived(status);
+        handler.onHeadersReceived(new DefaultHttpHeaders());
+    }
+
+    private static HttpResponseBodyPart bodyPart(String body) {
+        HttpResponseBodyPart bodyPart = mock(HttpResponseBodyPart.class);
+        when(bodyPart.getBodyPartBytes()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return bodyPart;
+    }
+
+    // emits the body parts on the I/O thread, but only as many as requested
+    private static class BodyPartPublisher implements Publisher<HttpResponseBodyPart> {
+        private final Executor ioThread;
+        private final List<String> bodyParts;
+        private final AtomicInteger emitted = new AtomicInteger();
+        private Callable<?> onComplete;
+
+        BodyPartPublisher(Executor ioThread, List<String> bodyParts) {
+            this.ioThread = ioThread;
+            this.bodyParts = bodyParts;
+        }
+
+        void onComplete(Callable<?> onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        int emitted() {
+            return emitted.get();
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super HttpResponseBodyPart> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    ioThread.execute(() -> {
+                        for (long i = 0; i < n && emitted.get() < bodyParts.size(); i++) {
+                            subscriber.onNext(bodyPart(bodyParts.get(emitted.getAndIncrement())));
+                            if (emitted.get() == bodyParts.size()) {
+                                subscriber.onComplete();
+                                try {
+                                    onComplete.call();
+                                } catch (Exception e) {
+                                    subscriber.onError(e);
+                                }
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
 }
@@ -202,4 +202,24 @@ public class BulkRequestBuilderTest {
         verify(asyncHttpClient).preparePost("/_bulk");
         verify(boundRequestBuilderMock).execute();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRequestOnlyErrors() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+
+        when(asyncHttpClient.preparePost("/_bulk")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture(new MockResponse(200, "ok", "{\"errors\":false}")));
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+
+        testee.add(new IndexActionBuilder("someIndex").setOpType(IndexOpType.INDEX).setType("Flutschfinger").setSource(object("Eis", "am Stiel")));
+
+        // when
+        testee.execute();
+
+        // then
+        verify(boundRequestBuilderMock).addQueryParam("filter_path", "errors,items.*.error,items.update.status,error,status");
+    }
+}
@@ -6,16 +6,25 @@ import de.otto.flummi.CompletedFuture;
 import de.otto.flummi.MockResponse;
 import de.otto.flummi.response.GetResponse;
 import de.otto.flummi.response.HttpServerErrorException;
+import de.otto.flummi.response.MultiGetDocumentException;
 import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.MultiGetBatcher;
 import org.asynchttpclient.BoundRequestBuilder;
 import org.mockito.Mock;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -82,4 +91,114 @@ public class GetRequestBuilderTest {
         }
         // then
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldGetDocumentThroughBatcher() throws Exception {
+        // given
+        MultiGetBatcher batcher = mock(MultiGetBatcher.class);
+        GetResponse batchedResponse = new GetResponse(true, new JsonObject(), "someId");
+        when(batcher.get("someIndex", "someType", "someId")).thenReturn(CompletableFuture.completedFuture(batchedResponse));
+
+        // when
+        GetResponse response = new GetRequestBuilder(httpClient, batcher, "someIndex", "someType", "someId").execute();
+
+        // then
+        assertThat(response, is(batchedResponse));
+        verifyZeroInteractions(httpClient);
+    }
+
+    @Test
+    public void shouldThrowSameExceptionForHttpErrorWithAndWithoutBatching() throws Exception {
+        // given
+        when(httpClient.prepareGet("/someIndex/someType/someId")).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture(new MockResponse(503, "unavailable", "{}")));
+        MultiGetBatcher batcher = mock(MultiGetBatcher.class);
+        CompletableFuture<GetResponse> failedBatch = new CompletableFuture<>();
+        failedBatch.completeExceptionally(new HttpServerErrorException(503, "unavailable", "{}"));
+        when(batcher.get("someIndex", "someType", "someId")).thenReturn(failedBatch);
+
+        // when
+        RuntimeException unbatched = executeAndCatch(new GetRequestBuilder(httpClient, "someIndex", "someType", "someId"));
+        RuntimeException batched = executeAndCatch(new GetRequestBuilder(httpClient, batcher, "someIndex", "someType", "someId"));
+
+        // then
+        assertThat(unbatched, is(instanceOf(HttpServerErrorException.class)));
+        assertThat(batched, is(instanceOf(HttpServerErrorException.class)));
+        assertThat(((HttpServerErrorException) batched).getStatusCode(), is(503));
+    }
+
+    @Test(expectedExceptions = MultiGetDocumentException.class)
+    public void shouldThrowDocumentErrorOfBatchedGet() throws Exception {
+        // given
+        MultiGetBatcher batcher = mock(MultiGetBatcher.class);
+        CompletableFuture<GetResponse> failedBatch = new CompletableFuture<>();
+        failedBatch.completeExceptionally(new MultiGetDocumentException("someId", new JsonObject()));
+        when(batcher.get("someIndex", "someType", "someId")).thenReturn(failedBatch);
+
+        // when
+        new GetRequestBuilder(httpClient, batcher, "someIndex", "someType", "someId").execute();
+    }
+
+    private static RuntimeException executeAndCatch(GetRequestBuilder getRequestBuilder) {
+        try {
+            getRequestBuilder.execute();
+        } catch (RuntimeException e) {
+            return e;
+        }
+        throw new AssertionError("expected an exception");
+    }
+
+    @Test
+    public void shouldBindSourceToType() throws Exception {
+        // given
+        when(httpClient.prepareGet("/someIndex/someType/someId")).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture(new MockResponse(200, "ok",
+                "{\"_index\":\"products\",\"_id\":\"someId\",\"found\":true,\"_source\":{\"name\":\"someName\",\"price\":42}}")));
+
+        // when
+        Optional<Product> product = new GetRequestBuilder(httpClient, "someIndex", "someType", "someId").execute(Product.class);
+
+        // then
+        assertThat(product.get().name, is("someName"));
+        assertThat(product.get().price, is(42));
+    }
+
+    @Test
+    public void shouldReturnEmptyTypedResultForMissingDocument() throws Exception {
+        // given
+        when(httpClient.prepareGet("/someIndex/someType/someId")).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture(new MockResponse(404, "not found", "{\"found\":false}")));
+
+        // when
+        Optional<Product> product = new GetRequestBuilder(httpClient, "someIndex", "someType", "someId").execute(Product.class);
+
+        // then
+        assertThat(product.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldWriteSourceWithoutParsing() throws Exception {
+        // given
+        when(httpClient.prepareGet("/someIndex/someType/someId")).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture(new MockResponse(200, "ok",
+                "{\"_index\":\"products\",\"_id\":\"someId\",\"found\":true,\"_source\":{\"name\":\"someName\",\"price\":42.10}}")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        GetResponse response = new GetRequestBuilder(httpClient, "someIndex", "someType", "someId").execute();
+        response.writeSourceTo(out);
+
+        // then
+        assertThat(response.getId(), is("someId"));
+        assertThat(out.toString("UTF-8"), is("{\"name\":\"someName\",\"price\":42.10}"));
+    }
+
+    static class Product {
+        String name;
+        int price;
+    }
+}
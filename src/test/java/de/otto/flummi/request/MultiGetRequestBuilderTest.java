@@ -4,6 +4,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import de.otto.flummi.CompletedFuture;
 import de.otto.flummi.MockResponse;
+import de.otto.flummi.response.MultiGetDocumentException;
 import de.otto.flummi.response.MultiGetResponse;
 import de.otto.flummi.response.MultiGetResponseDocument;
 import de.otto.flummi.util.HttpClientWrapper;
@@ -12,6 +13,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.nio.charset.Charset;
+import java.util.List;
 
 import static de.otto.flummi.request.GsonHelper.object;
 import static de.otto.flummi.response.MultiGetRequestDocument.multiGetRequestDocumentBuilder;
@@ -20,6 +22,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -184,4 +187,88 @@ public class MultiGetRequestBuilderTest {
         assertThat(response.getMultiGetResponseDocuments().get(0), is(new MultiGetResponseDocument("V1", false, new JsonObject())));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldParseDocumentsWithError() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_mget")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", "{\"docs\":[" +
+                "{\"_id\":\"V1\",\"found\":false}," +
+                "{\"_id\":\"V2\",\"error\":{\"type\":\"no_shard_available_action_exception\",\"reason\":\"No shard available\"}}," +
+                "{\"_id\":\"V3\",\"error\":\"[some-index] missing\"}]}")));
+
+        // when
+        MultiGetResponse response = requestBuilder.setRequestDocuments(asList(multiGetRequestDocumentBuilder().withId("V1").build(),
+                multiGetRequestDocumentBuilder().withId("V2").build(), multiGetRequestDocumentBuilder().withId("V3").build())).execute();
+
+        //then
+        List<MultiGetResponseDocument> documents = response.getMultiGetResponseDocuments();
+        assertThat(documents.get(0).getError(), is(nullValue()));
+        assertThat(documents.get(1).isFound(), is(false));
+        assertThat(documents.get(1).getError().get("type").getAsString(), is("no_shard_available_action_exception"));
+        assertThat(documents.get(2).getError().get("reason").getAsString(), is("[some-index] missing"));
+    }
+
+    @Test(expectedExceptions = MultiGetDocumentException.class)
+    public void shouldFailTypedMultiGetIfDocumentHasError() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_mget")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", "{\"docs\":[" +
+                "{\"_id\":\"V1\",\"error\":{\"type\":\"no_shard_available_action_exception\",\"reason\":\"No shard available\"}}]}")));
+
+        // when
+        requestBuilder.setRequestDocuments(asList(multiGetRequestDocumentBuilder().withId("V1").build())).execute(JsonObject.class);
+    }
+
+    @Test
+    public void shouldKeepErrorsOfDocumentsInFilteredResponse() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_mget")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", ONE_DOC_FOUND_RESPONSE)));
+
+        // when
+        requestBuilder.setRequestDocuments(asList(multiGetRequestDocumentBuilder().withId("V1").build())).execute();
+
+        //then
+        verify(boundRequestBuilderMock).addQueryParam("filter_path", "docs._id,docs.found,docs._source,docs.error,error,status");
+    }
+
+    @Test
+    public void shouldBindSourcesToTypeInRequestOrder() throws Exception {
+        // given
+        BoundRequestBuilder boundRequestBuilderMock = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/some-index/_mget")).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setBody(any(String.class))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.setCharset(Charset.forName("UTF-8"))).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.addHeader(anyString(),anyString())).thenReturn(boundRequestBuilderMock);
+        when(boundRequestBuilderMock.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "ok", "{\"docs\":[" +
+                "{\"_id\":\"V1\",\"found\":true,\"_source\":{\"variationId\":\"V1\",\"name\":\"name1\"}}," +
+                "{\"_id\":\"V2\",\"found\":false}]}")));
+
+        // when
+        List<Variation> variations = requestBuilder.setRequestDocuments(asList(multiGetRequestDocumentBuilder().withId("V1").build(), multiGetRequestDocumentBuilder().withId("V2").build())).execute(Variation.class);
+
+        //then
+        assertThat(variations, hasSize(2));
+        assertThat(variations.get(0).variationId, is("V1"));
+        assertThat(variations.get(0).name, is("name1"));
+        assertThat(variations.get(1), is(nullValue()));
+    }
+
+    static class Variation {
+        String variationId;
+        String name;
+    }
+
+}
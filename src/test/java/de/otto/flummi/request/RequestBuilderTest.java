@@ -0,0 +1,21 @@
+package de.otto.flummi.request;
+
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class RequestBuilderTest {
+
+    @Test
+    public void shouldExecuteAsyncWithDefaultImplementation() throws Exception {
+        // given
+        RequestBuilder<String> requestBuilder = () -> "response";
+
+        // when
+        String response = requestBuilder.executeAsync().get();
+
+        // then
+        assertThat(response, is("response"));
+    }
+}
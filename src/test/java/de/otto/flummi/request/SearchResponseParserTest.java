@@ -0,0 +1,171 @@
+package de.otto.flummi.request;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import de.otto.flummi.aggregations.TermsBuilder;
+import de.otto.flummi.response.HitConsumer;
+import de.otto.flummi.response.ScrollingSearchHits;
+import de.otto.flummi.response.SearchHit;
+import de.otto.flummi.response.SearchResponse;
+import de.otto.flummi.response.SimpleSearchHits;
+import de.otto.flummi.util.DeadlineExceededException;
+import de.otto.flummi.util.HttpClientWrapper;
+import de.otto.flummi.util.StringDictionary;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class SearchResponseParserTest {
+
+    private static final String RESPONSE = "{\"took\":3,\"timed_out\":false," +
+            "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}," +
+            "\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[" +
+            "{\"_index\":\"products\",\"_id\":\"P0\",\"_score\":null,\"_source\":{\"name\":\"zero\",\"tags\":[\"a\",\"b\"]},\"sort\":[1]}," +
+            "{\"_index\":\"products\",\"_id\":\"P1\",\"_score\":0.5,\"fields\":{\"name\":[\"one\"]}}" +
+            "]}," +
+            "\"aggregations\":{\"unknown\":{\"value\":1},\"brands\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0," +
+            "\"buckets\":[{\"key\":\"adidas\",\"doc_count\":2}]}}," +
+            "\"_scroll_id\":\"someScrollId\"}";
+
+    @Test(expectedExceptions = DeadlineExceededException.class)
+    public void shouldFailIfSearchTimedOutOnElasticsearch() {
+        // given
+        HitConsumer hitConsumer = mock(HitConsumer.class);
+
+        try {
+            // when
+            new SearchResponseParser(null, null, null, null, null).parse(new StringReader(RESPONSE.replace("\"timed_out\":false", "\"timed_out\":true")), hitConsumer);
+        } finally {
+            // then
+            verifyZeroInteractions(hitConsumer);
+        }
+    }
+
+    @Test
+    public void shouldReportFailedShards() {
+        // when
+        SearchResponse response = new SearchResponseParser(null, null, null, null, null)
+                .parse(new StringReader(RESPONSE.replace("\"failed\":0", "\"failed\":2,\"failures\":[]")));
+
+        // then
+        assertThat(response.getFailedShards(), is(2));
+        assertThat(response.getHits().getTotalHits(), is(2L));
+    }
+
+    @Test
+    public void shouldParseHitsInOnePass() {
+        // when
+        SearchResponse response = new SearchResponseParser(null, null, null, null, null).parse(new StringReader(RESPONSE));
+
+        // then
+        assertThat(response.getTookInMillis(), is(3L));
+        assertThat(response.getScrollId(), is("someScrollId"));
+        assertThat(response.getFailedShards(), is(0));
+        assertThat(response.getHits().getTotalHits(), is(2L));
+        assertThat(response.getHits().getMaxScore(), is(nullValue()));
+        Iterator<SearchHit> hits = response.getHits().iterator();
+        SearchHit first = hits.next();
+        assertThat(first.getId(), is("P0"));
+        assertThat(first.getScore(), is(nullValue()));
+        assertThat(first.getSource().get("name"), is(new JsonPrimitive("zero")));
+        assertThat(first.getSource().get("tags").getAsJsonArray().size(), is(2));
+        assertThat(first.getFields().entrySet().size(), is(0));
+        SearchHit second = hits.next();
+        assertThat(second.getId(), is("P1"));
+        assertThat(second.getScore(), is(0.5F));
+        assertThat(second.getSource(), is(nullValue()));
+        assertThat(second.getFields().get("name").getAsJsonArray().get(0).getAsString(), is("one"));
+        assertThat(hits.hasNext(), is(false));
+    }
+
+    @Test
+    public void shouldParseRequestedAggregationsOnly() {
+        // when
+        SearchResponse response = new SearchResponseParser(Collections.singletonList(new TermsBuilder("brands").field("brand")), null, null, null, null)
+                .parse(new StringReader(RESPONSE));
+
+        // then
+        assertThat(response.getAggregations().size(), is(1));
+        assertThat(response.getAggregations().get("brands").getBuckets().get(0).getKey(), is("adidas"));
+    }
+
+    @Test
+    public void shouldCreateScrollingHitsForScrolledSearch() {
+        // when
+        SearchResponse response = new SearchResponseParser(null, "1m", mock(HttpClientWrapper.class), null, null).parse(new StringReader(RESPONSE));
+
+        // then
+        assertThat(response.getHits(), instanceOf(ScrollingSearchHits.class));
+    }
+
+    @Test
+    public void shouldBindSourcesWithAdapter() {
+        // given
+        TypeAdapter<Product> adapter = new Gson().getAdapter(Product.class);
+
+        // when
+        SearchResponse response = new SearchResponseParser(null, null, null, null, adapter).parse(new StringReader(RESPONSE));
+
+        // then
+        SearchHit first = response.getHits().iterator().next();
+        assertThat(first.getSource(adapter).name, is("zero"));
+        assertThat(first.getSource(Product.class).tags, is(new String[]{"a", "b"}));
+        assertThat(first.getSource().get("name"), is(new JsonPrimitive("zero")));
+    }
+
+    @Test
+    public void shouldShareFieldNamesThroughClientDictionary() {
+        // given
+        HttpClientWrapper client = mock(HttpClientWrapper.class);
+        when(client.getStringDictionary()).thenReturn(new StringDictionary(100, false));
+        String response = "{\"hits\":{\"total\":2,\"hits\":[" +
+                "{\"_id\":\"P0\",\"_source\":{\"name\":\"zero\"}}," +
+                "{\"_id\":\"P1\",\"_source\":{\"name\":\"one\"}}]}}";
+
+        // when
+        Iterator<SearchHit> hits = new SearchResponseParser(null, null, client, null, null).parse(new StringReader(response)).getHits().iterator();
+
+        // then
+        String firstName = hits.next().getSource().entrySet().iterator().next().getKey();
+        String secondName = hits.next().getSource().entrySet().iterator().next().getKey();
+        assertThat(firstName, is(sameInstance(secondName)));
+    }
+
+    @Test
+    public void shouldPassHitsToConsumerInsteadOfCollectingThem() {
+        // given
+        List<String> ids = new ArrayList<>();
+
+        // when
+        SearchResponse response = new SearchResponseParser(Collections.singletonList(new TermsBuilder("brands").field("brand")), "1m", mock(HttpClientWrapper.class), null, null)
+                .parse(new StringReader(RESPONSE), hit -> ids.add(hit.getId()));
+
+        // then
+        assertThat(ids, is(Arrays.asList("P0", "P1")));
+        assertThat(response.getHits(), instanceOf(SimpleSearchHits.class));
+        assertThat(response.getHits().getTotalHits(), is(2L));
+        assertThat(response.getHits().iterator().hasNext(), is(false));
+        assertThat(response.getScrollId(), is("someScrollId"));
+        assertThat(response.getAggregations().get("brands").getBuckets().size(), is(1));
+    }
+
+    static class Product {
+        String name;
+        String[] tags;
+    }
+}
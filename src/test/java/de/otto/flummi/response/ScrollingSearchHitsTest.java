@@ -2,8 +2,13 @@ package de.otto.flummi.response;
 
 import de.otto.flummi.CompletedFuture;
 import de.otto.flummi.MockResponse;
+import de.otto.flummi.util.Deadline;
+import de.otto.flummi.util.DeadlineExceededException;
 import de.otto.flummi.util.HttpClientWrapper;
 import org.asynchttpclient.BoundRequestBuilder;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -66,6 +71,18 @@ public class ScrollingSearchHitsTest {
         verifyZeroInteractions(httpClient);
     }
 
+    @Test(expectedExceptions = DeadlineExceededException.class)
+    public void shouldStopScrollingWhenDeadlineIsExceeded() throws Exception {
+        when(httpClient.preparePost("/_search/scroll")).thenReturn(requestBuilder);
+        ScrollingSearchHits testee = new ScrollingSearchHits(100, 1F, "someScrollId", "1m", someSearchHits("P0", "P1"), httpClient, Deadline.afterMillis(0));
+
+        try {
+            testee.forEach(hit -> {});
+        } finally {
+            verify(requestBuilder, never()).execute();
+        }
+    }
+
     @Test
     public void shouldFetchNextPage() throws Exception {
         when(requestBuilder.addHeader(anyString(),anyString())).thenReturn(requestBuilder);
@@ -113,9 +130,107 @@ public class ScrollingSearchHitsTest {
         assertThat(iterator.hasNext(), is(false));
         verify(httpClient).preparePost("/_search/scroll");
         verify(requestBuilder).execute();
+        verify(httpClient).getStringDictionary();
         verifyNoMoreInteractions(httpClient);
     }
 
+    @Test
+    public void shouldPublishPagesOnDemand() throws Exception {
+        // given
+        when(requestBuilder.addHeader(anyString(),anyString())).thenReturn(requestBuilder);
+        when(requestBuilder.execute()).thenReturn(
+                new CompletedFuture(new MockResponse(200, "OK", NEXT_PAGE)),
+                new CompletedFuture(new MockResponse(200, "OK", EMPTY_PAGE)));
+        when(httpClient.preparePost(anyString())).thenReturn(requestBuilder);
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        ScrollingSearchHits testee = new ScrollingSearchHits(100, 1F, "someScrollId", "1m", someSearchHits("P0", "P1"), httpClient);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        testee.publisher().subscribe(subscriber);
+
+        // when
+        subscriber.subscription.request(2);
+
+        // then
+        assertThat(subscriber.ids, is(Arrays.asList("P0", "P1")));
+        verify(httpClient, never()).preparePost(anyString());
+
+        // when
+        subscriber.subscription.request(1);
+
+        // then
+        assertThat(subscriber.ids, is(Arrays.asList("P0", "P1", "P2")));
+        verify(httpClient).preparePost("/_search/scroll");
+        assertThat(subscriber.completed, is(false));
+
+        // when
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // then
+        assertThat(subscriber.ids, is(Arrays.asList("P0", "P1", "P2", "P3")));
+        verify(httpClient, times(2)).preparePost("/_search/scroll");
+        assertThat(subscriber.completed, is(true));
+    }
+
+    @Test
+    public void shouldPublishErrorWhenDeadlineIsExceeded() throws Exception {
+        // given
+        when(httpClient.preparePost("/_search/scroll")).thenReturn(requestBuilder);
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        ScrollingSearchHits testee = new ScrollingSearchHits(100, 1F, "someScrollId", "1m", someSearchHits("P0"), httpClient, Deadline.afterMillis(0));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        testee.publisher().subscribe(subscriber);
+
+        // when
+        subscriber.subscription.request(2);
+
+        // then
+        assertThat(subscriber.ids, is(Arrays.asList("P0")));
+        assertTrue(subscriber.error instanceof DeadlineExceededException);
+        verify(requestBuilder, never()).execute();
+    }
+
+    @Test
+    public void shouldRejectSecondSubscriber() throws Exception {
+        // given
+        ScrollingSearchHits testee = new ScrollingSearchHits(100, 1F, "someScrollId", "1m", someSearchHits("P0"), httpClient);
+        Publisher<SearchHit> publisher = testee.publisher();
+        publisher.subscribe(new RecordingSubscriber());
+        RecordingSubscriber second = new RecordingSubscriber();
+
+        // when
+        publisher.subscribe(second);
+
+        // then
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    private static class RecordingSubscriber implements Subscriber<SearchHit> {
+        private final List<String> ids = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(SearchHit hit) {
+            ids.add(hit.getId());
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
     private List<SearchHit> someSearchHits(String... ids) {
         return Arrays.stream(ids).map(id -> new SearchHit(id, object(), null, 1F)).collect(toList());
     }
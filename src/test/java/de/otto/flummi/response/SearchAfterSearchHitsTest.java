@@ -0,0 +1,109 @@
+package de.otto.flummi.response;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.testng.Assert.fail;
+
+public class SearchAfterSearchHitsTest {
+
+    @Test
+    public void shouldFetchPagesAfterSortValuesOfLastHit() {
+        // given
+        List<String> searchedAfter = new ArrayList<>();
+        SearchAfterSearchHits testee = new SearchAfterSearchHits(5, 1F, someSearchHits("P0", "P1"), 2, sortValues -> {
+            searchedAfter.add(sortValues.get(0).getAsString());
+            switch (sortValues.get(0).getAsString()) {
+                case "P1":
+                    return CompletableFuture.completedFuture(someSearchHits("P2", "P3"));
+                case "P3":
+                    return CompletableFuture.completedFuture(someSearchHits("P4"));
+                default:
+                    throw new IllegalStateException("unexpected page after " + sortValues);
+            }
+        });
+
+        // when
+        List<String> ids = testee.stream().map(SearchHit::getId).collect(toList());
+
+        // then
+        assertThat(ids, contains("P0", "P1", "P2", "P3", "P4"));
+        assertThat(searchedAfter, contains("P1", "P3"));
+    }
+
+    @Test
+    public void shouldPrefetchNextPageWhileCurrentPageIsIterated() {
+        // given
+        List<CompletableFuture<List<SearchHit>>> fetches = new ArrayList<>();
+        SearchAfterSearchHits testee = new SearchAfterSearchHits(4, 1F, someSearchHits("P0", "P1"), 2, sortValues -> {
+            CompletableFuture<List<SearchHit>> page = new CompletableFuture<>();
+            fetches.add(page);
+            return page;
+        });
+
+        // when
+        Iterator<SearchHit> iterator = testee.iterator();
+        assertThat(iterator.next().getId(), is("P0"));
+
+        // then
+        assertThat(fetches.size(), is(1));
+        fetches.get(0).complete(someSearchHits("P2"));
+        assertThat(iterator.next().getId(), is("P1"));
+        assertThat(iterator.next().getId(), is("P2"));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(fetches.size(), is(1));
+    }
+
+    @Test
+    public void shouldPropagateFailedPage() {
+        // given
+        CompletableFuture<List<SearchHit>> failedPage = new CompletableFuture<>();
+        failedPage.completeExceptionally(new HttpServerErrorException(500, "Internal Server Error", "{}"));
+        SearchAfterSearchHits testee = new SearchAfterSearchHits(4, 1F, someSearchHits("P0"), 1, sortValues -> failedPage);
+        Iterator<SearchHit> iterator = testee.iterator();
+        iterator.next();
+
+        // when
+        try {
+            iterator.hasNext();
+            fail("expected HttpServerErrorException");
+        } catch (HttpServerErrorException e) {
+            // then
+            assertThat(e.getStatusCode(), is(500));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void shouldNotIterateTwice() {
+        // given
+        SearchAfterSearchHits testee = new SearchAfterSearchHits(1, 1F, someSearchHits("P0"), 2, sortValues -> null);
+        testee.iterator();
+
+        // when
+        testee.iterator();
+    }
+
+    private List<SearchHit> someSearchHits(String... ids) {
+        return Arrays.stream(ids)
+                .map(id -> SearchHit.withRawSource(id, null, null, new JsonObject(), 1F, sortValues(id)))
+                .collect(toList());
+    }
+
+    private static JsonArray sortValues(String id) {
+        JsonArray sortValues = new JsonArray();
+        sortValues.add(new JsonPrimitive(id));
+        return sortValues;
+    }
+}
@@ -0,0 +1,88 @@
+package de.otto.flummi.response;
+
+import com.google.gson.JsonObject;
+import de.otto.flummi.util.StringDictionary;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class SearchHitTest {
+
+    @Test
+    public void shouldParseRawSourceOnFirstAccess() {
+        // given
+        SearchHit hit = SearchHit.withRawSource("P0", "{\"name\":\"Bällchen\",\"price\":12345678901234}".getBytes(UTF_8), new JsonObject(), 1F);
+
+        // when
+        JsonObject source = hit.getSource();
+
+        // then
+        assertThat(source.get("name").getAsString(), is("Bällchen"));
+        assertThat(source.get("price").getAsLong(), is(12345678901234L));
+        assertThat(hit.getSource(), is(sameInstance(source)));
+    }
+
+    @Test
+    public void shouldKeepNumberLiteralsOfSourceParsedWithDictionary() {
+        // given
+        String rawSource = "{\"price\":1e3,\"rating\":4.50,\"stock\":12345678901234}";
+        SearchHit hit = SearchHit.withRawSource("P0", rawSource.getBytes(UTF_8), new StringDictionary(100, false), new JsonObject(), 1F, null);
+
+        // when
+        JsonObject source = hit.getSource();
+
+        // then
+        assertThat(source.toString(), is(rawSource));
+    }
+
+    @Test
+    public void shouldReturnNullWithoutSource() {
+        // given
+        SearchHit hit = SearchHit.withRawSource("P0", null, new JsonObject(), 1F);
+
+        // when
+        JsonObject source = hit.getSource();
+
+        // then
+        assertThat(source, is(nullValue()));
+    }
+
+    @Test
+    public void shouldWriteRawSourceUnchanged() throws Exception {
+        // given
+        byte[] rawSource = "{\"name\":\"Bällchen\",\"price\":12345678901234}".getBytes(UTF_8);
+        SearchHit hit = SearchHit.withRawSource("P0", rawSource, new JsonObject(), 1F);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        hit.writeSourceTo(out);
+        hit.writeSourceTo(Channels.newChannel(out));
+
+        // then
+        assertThat(out.toString("UTF-8"), is("{\"name\":\"Bällchen\",\"price\":12345678901234}{\"name\":\"Bällchen\",\"price\":12345678901234}"));
+        assertThat(hit.getSourceBytes().isReadOnly(), is(true));
+        assertThat(hit.getSourceBytes().remaining(), is(rawSource.length));
+    }
+
+    @Test
+    public void shouldEncodeParsedSource() throws Exception {
+        // given
+        JsonObject source = new JsonObject();
+        source.addProperty("name", "Bällchen");
+        SearchHit hit = new SearchHit("P0", source, new JsonObject(), 1F);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        hit.writeSourceTo(out);
+
+        // then
+        assertThat(out.toString("UTF-8"), is("{\"name\":\"Bällchen\"}"));
+    }
+}
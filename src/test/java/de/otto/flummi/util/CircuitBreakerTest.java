@@ -0,0 +1,117 @@
+package de.otto.flummi.util;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static de.otto.flummi.util.CircuitBreaker.State.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class CircuitBreakerTest {
+
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeMethod
+    public void setUp() {
+        circuitBreaker = new CircuitBreaker(new CircuitBreakerPolicy(0.5, 1000)
+                .setWindowSize(10)
+                .setMinimumNumberOfRequests(4)
+                .setSlowRequestMillis(500L)
+                .setPermittedProbes(2));
+    }
+
+    @Test
+    public void shouldStayClosedBelowMinimumNumberOfRequests() {
+        circuitBreaker.onComplete(0, true, 10);
+        circuitBreaker.onComplete(0, true, 10);
+        circuitBreaker.onComplete(0, true, 10);
+
+        assertThat(circuitBreaker.getState(0), is(CLOSED));
+    }
+
+    @Test
+    public void shouldOpenWhenFailureRateIsReached() {
+        circuitBreaker.onComplete(0, false, 10);
+        circuitBreaker.onComplete(0, true, 10);
+        circuitBreaker.onComplete(0, false, 10);
+        circuitBreaker.onComplete(0, true, 10);
+
+        assertThat(circuitBreaker.getState(0), is(OPEN));
+        assertThat(circuitBreaker.isRequestPermitted(999), is(false));
+    }
+
+    @Test
+    public void shouldCountSlowRequestsAsFailed() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onComplete(0, false, 600);
+        }
+
+        assertThat(circuitBreaker.getState(0), is(OPEN));
+    }
+
+    @Test
+    public void shouldOnlyConsiderRequestsInTheWindow() {
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onComplete(0, false, 10);
+        }
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onComplete(0, true, 10);
+        }
+        assertThat(circuitBreaker.getState(0), is(CLOSED));
+
+        circuitBreaker.onComplete(0, true, 10);
+
+        assertThat(circuitBreaker.getState(0), is(OPEN));
+    }
+
+    @Test
+    public void shouldLetProbesThroughAfterCoolDown() {
+        open();
+
+        assertThat(circuitBreaker.getState(1000), is(HALF_OPEN));
+        assertThat(circuitBreaker.tryAcquirePermission(1000), is(true));
+        assertThat(circuitBreaker.tryAcquirePermission(1000), is(true));
+        assertThat(circuitBreaker.tryAcquirePermission(1000), is(false));
+    }
+
+    @Test
+    public void shouldCloseWhenAllProbesSucceed() {
+        open();
+        circuitBreaker.tryAcquirePermission(1000);
+        circuitBreaker.tryAcquirePermission(1000);
+
+        circuitBreaker.onComplete(1010, false, 10);
+        circuitBreaker.onComplete(1020, false, 10);
+
+        assertThat(circuitBreaker.getState(1020), is(CLOSED));
+    }
+
+    @Test
+    public void shouldOpenAgainWhenProbeFails() {
+        open();
+        circuitBreaker.tryAcquirePermission(1000);
+
+        circuitBreaker.onComplete(1010, true, 10);
+
+        assertThat(circuitBreaker.getState(1010), is(OPEN));
+        assertThat(circuitBreaker.getState(2010), is(HALF_OPEN));
+    }
+
+    @Test
+    public void shouldReleaseProbeOfAbandonedRequest() {
+        open();
+        circuitBreaker.tryAcquirePermission(1000);
+        circuitBreaker.tryAcquirePermission(1000);
+
+        circuitBreaker.releasePermission();
+
+        assertThat(circuitBreaker.tryAcquirePermission(1000), is(true));
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onComplete(0, true, 10);
+        }
+        assertThat(circuitBreaker.getState(0), is(OPEN));
+    }
+}
@@ -0,0 +1,127 @@
+package de.otto.flummi.util;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.testng.Assert.fail;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void shouldPermitRequestsUpToTheLimit() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10);
+
+        // when
+        CompletableFuture<Void> first = limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+        CompletableFuture<Void> third = limiter.acquire();
+
+        // then
+        assertThat(first.isDone() && !first.isCompletedExceptionally(), is(true));
+        assertThat(second.isDone() && !second.isCompletedExceptionally(), is(true));
+        assertThat(third.isCompletedExceptionally(), is(true));
+        assertThat(limiter.getInFlight(), is(2));
+    }
+
+    @Test
+    public void shouldPassPermitToWaitingRequest() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1).setQueue(1, 10000);
+        limiter.acquire();
+        CompletableFuture<Void> waiting = limiter.acquire();
+        assertThat(waiting.isDone(), is(false));
+
+        // when
+        limiter.release(10 * MILLIS, false);
+
+        // then
+        assertThat(waiting.isDone() && !waiting.isCompletedExceptionally(), is(true));
+        assertThat(limiter.getInFlight(), is(1));
+    }
+
+    @Test
+    public void shouldRejectWaitingRequestAfterMaxWait() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1).setQueue(1, 10);
+        limiter.acquire();
+
+        // when
+        CompletableFuture<Void> waiting = limiter.acquire();
+
+        // then
+        try {
+            waiting.get();
+            fail("expected rejection");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ConcurrencyLimitExceededException.class));
+        }
+        assertThat(limiter.getInFlight(), is(1));
+    }
+
+    @Test
+    public void shouldShrinkLimitOnDroppedRequests() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 5, 100);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(10 * MILLIS, true);
+        }
+
+        // then
+        assertThat(limiter.getLimit(), lessThan(20));
+    }
+
+    @Test
+    public void shouldGrowLimitWhileLatencyIsStable() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 100);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            limiter.release(10 * MILLIS, false);
+            limiter.acquire();
+        }
+
+        // then
+        assertThat(limiter.getLimit(), greaterThan(4));
+    }
+
+    @Test
+    public void shouldShrinkLimitWhenLatencyRises() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(50, 1, 100);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.release(10 * MILLIS, false);
+            limiter.acquire();
+        }
+        int limitBefore = limiter.getLimit();
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            limiter.release(100 * MILLIS, false);
+            limiter.acquire();
+        }
+
+        // then
+        assertThat(limiter.getLimit(), lessThan(limitBefore));
+    }
+}
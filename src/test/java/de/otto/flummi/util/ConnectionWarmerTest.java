@@ -0,0 +1,97 @@
+package de.otto.flummi.util;
+
+import de.otto.flummi.CompletedFuture;
+import de.otto.flummi.MockResponse;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.ListenableFuture;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.*;
+
+public class ConnectionWarmerTest {
+
+    private AsyncHttpClient asyncHttpClient;
+    private BoundRequestBuilder node1RequestBuilder;
+    private BoundRequestBuilder node2RequestBuilder;
+    private HttpClientWrapper httpClient;
+
+    @BeforeMethod
+    public void setUp() {
+        asyncHttpClient = mock(AsyncHttpClient.class);
+        node1RequestBuilder = mock(BoundRequestBuilder.class);
+        node2RequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.prepareHead("http://node1:9200/")).thenReturn(node1RequestBuilder);
+        when(asyncHttpClient.prepareHead("http://node2:9200/")).thenReturn(node2RequestBuilder);
+        httpClient = new HttpClientWrapper(asyncHttpClient, asList("http://node1:9200", "http://node2:9200"));
+    }
+
+    @Test
+    public void shouldOpenConnectionsToEveryNode() {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+
+        // when
+        boolean allNodesAnswered = new ConnectionWarmer(httpClient, 3).warmUp();
+
+        // then
+        assertThat(allNodesAnswered, is(true));
+        verify(node1RequestBuilder, times(3)).execute();
+        verify(node2RequestBuilder, times(3)).execute();
+    }
+
+    @Test
+    public void shouldQuarantineNodeThatDoesNotAnswer() {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+        when(node2RequestBuilder.execute()).thenReturn(new ListenableFuture.CompletedFailure<>(new ConnectException("refused")));
+
+        // when
+        boolean allNodesAnswered = new ConnectionWarmer(httpClient, 2).warmUp();
+
+        // then
+        assertThat(allNodesAnswered, is(false));
+        assertThat(httpClient.getNodePool().getNodes().get(0).getFailedAttempts(), is(0));
+        assertThat(httpClient.getNodePool().getNodes().get(1).getFailedAttempts(), is(1));
+    }
+
+    @Test(timeOut = 5_000)
+    public void shouldQuarantineNodeThatNeverAnswers() {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+        when(node2RequestBuilder.execute()).thenReturn(mock(ListenableFuture.class));
+
+        // when
+        boolean allNodesAnswered = new ConnectionWarmer(httpClient, 1).setProbeTimeoutMillis(50).warmUp();
+
+        // then
+        assertThat(allNodesAnswered, is(false));
+        assertThat(httpClient.getNodePool().getNodes().get(0).getFailedAttempts(), is(0));
+        assertThat(httpClient.getNodePool().getNodes().get(1).getFailedAttempts(), is(1));
+    }
+
+    @Test
+    public void shouldWarmUpConnectionsOfEveryClient() {
+        // given
+        AsyncHttpClient backgroundClient = mock(AsyncHttpClient.class);
+        BoundRequestBuilder backgroundRequestBuilder = mock(BoundRequestBuilder.class);
+        when(backgroundClient.prepareHead(anyString())).thenReturn(backgroundRequestBuilder);
+        when(backgroundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "")));
+        httpClient.setAsyncHttpClient(RequestPriority.BACKGROUND, backgroundClient);
+
+        // when
+        new ConnectionWarmer(httpClient, 1).warmUp();
+
+        // then
+        verify(backgroundRequestBuilder, times(2)).execute();
+    }
+}
@@ -0,0 +1,591 @@
+package de.otto.flummi.util;
+
+import de.otto.flummi.CompletedFuture;
+import de.otto.flummi.MockResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Realm;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Publisher;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.fail;
+
+public class HttpClientWrapperTest {
+
+    private AsyncHttpClient asyncHttpClient;
+    private BoundRequestBuilder node1RequestBuilder;
+    private BoundRequestBuilder node2RequestBuilder;
+    private HttpClientWrapper httpClient;
+
+    @BeforeMethod
+    public void setUp() {
+        asyncHttpClient = mock(AsyncHttpClient.class);
+        node1RequestBuilder = mock(BoundRequestBuilder.class);
+        node2RequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.prepareGet("http://node1:9200/_count")).thenReturn(node1RequestBuilder);
+        when(asyncHttpClient.prepareGet("http://node2:9200/_count")).thenReturn(node2RequestBuilder);
+        httpClient = new HttpClientWrapper(asyncHttpClient, asList("http://node1:9200", "http://node2:9200"));
+    }
+
+    @Test
+    public void shouldSpreadRequestsAcrossNodes() throws Exception {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"count\":1}")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"count\":2}")));
+
+        // when
+        Response first = httpClient.prepareGet("/_count").execute().get();
+        Response second = httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        assertThat(first.getResponseBody(), is("{\"count\":1}"));
+        assertThat(second.getResponseBody(), is("{\"count\":2}"));
+    }
+
+    @Test
+    public void shouldReplayRequestSettingsOnNodeRequest() throws Exception {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+
+        // when
+        httpClient.prepareGet("/_count")
+                .addHeader("Content-Type", "application/json")
+                .addQueryParam("q", "foo")
+                .setBody("{}")
+                .execute().get();
+
+        // then
+        verify(node1RequestBuilder).addHeader("Content-Type", "application/json");
+        verify(node1RequestBuilder).addQueryParam("q", "foo");
+        verify(node1RequestBuilder).setBody("{}");
+    }
+
+    @Test
+    public void shouldReplayEverySettingOnNodeRequest() throws Exception {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        Map<String, List<String>> queryParams = singletonMap("q", singletonList("foo"));
+        Realm realm = new Realm.Builder("user", "secret").setScheme(Realm.AuthScheme.BASIC).build();
+
+        // when
+        httpClient.prepareGet("/_count")
+                .setQueryParams(queryParams)
+                .addFormParam("field", "value")
+                .setRealm(realm)
+                .setFollowRedirect(true)
+                .setBody(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)))
+                .execute().get();
+
+        // then
+        verify(node1RequestBuilder).setQueryParams(queryParams);
+        verify(node1RequestBuilder).addFormParam("field", "value");
+        verify(node1RequestBuilder).setRealm(realm);
+        verify(node1RequestBuilder).setFollowRedirect(true);
+        verify(node1RequestBuilder).setBody("{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void shouldRejectSettingsThatCannotBeReplayed() {
+        httpClient.prepareGet("/_count").setUrl("http://node3:9200/_count");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSendRequestWithCustomAsyncHandlerToNextNodeIfConnectionFails() throws Exception {
+        // given
+        when(node1RequestBuilder.execute(any(AsyncHandler.class))).thenReturn(failed(new ConnectException("Connection refused")));
+        when(node2RequestBuilder.execute(any(AsyncHandler.class))).thenAnswer(invocation -> {
+            AsyncHandler<String> handler = (AsyncHandler<String>) invocation.getArguments()[0];
+            HttpResponseStatus status = mock(HttpResponseStatus.class);
+            when(status.getStatusCode()).thenReturn(200);
+            handler.onStatusReceived(status);
+            return new CompletedFuture<>(handler.onCompleted());
+        });
+        AsyncHandler<String> handler = mock(AsyncHandler.class);
+        when(handler.onCompleted()).thenReturn("done");
+
+        // when
+        String result = httpClient.prepareGet("/_count").execute(handler).get();
+
+        // then
+        assertThat(result, is("done"));
+        verify(handler).onStatusReceived(any(HttpResponseStatus.class));
+        verify(handler, never()).onThrowable(any(Throwable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldPassBodyStreamToStreamedAsyncHandler() throws Exception {
+        // given
+        Publisher<HttpResponseBodyPart> body = mock(Publisher.class);
+        when(node1RequestBuilder.execute(any(AsyncHandler.class))).thenAnswer(invocation -> {
+            AsyncHandler<String> handler = (AsyncHandler<String>) invocation.getArguments()[0];
+            assertThat(handler instanceof StreamedAsyncHandler, is(true));
+            ((StreamedAsyncHandler<String>) handler).onStream(body);
+            return new CompletedFuture<>(handler.onCompleted());
+        });
+        StreamedAsyncHandler<String> handler = mock(StreamedAsyncHandler.class);
+        when(handler.onCompleted()).thenReturn("done");
+
+        // when
+        String result = httpClient.prepareGet("/_count").execute(handler).get();
+
+        // then
+        assertThat(result, is("done"));
+        verify(handler).onStream(body);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReportExpiredDeadlineToCustomAsyncHandler() throws Exception {
+        // given
+        when(node1RequestBuilder.execute(any(AsyncHandler.class))).thenReturn(new ListenableCompletableFuture<>(new CompletableFuture<>()));
+        AsyncHandler<String> handler = mock(AsyncHandler.class);
+
+        // when
+        try {
+            ((RoutingRequestBuilder) httpClient.prepareGet("/_count"))
+                    .setDeadline(Deadline.afterMillis(20))
+                    .execute(handler).get(5, TimeUnit.SECONDS);
+            fail("expected DeadlineExceededException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof DeadlineExceededException, is(true));
+        }
+
+        // then
+        verify(handler, times(1)).onThrowable(any(DeadlineExceededException.class));
+    }
+
+    @Test
+    public void shouldFailOverToNextNodeAndQuarantineUnreachableNode() throws Exception {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(failed(new ConnectException("Connection refused")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"count\":2}")));
+
+        // when
+        Response response = httpClient.prepareGet("/_count").execute().get();
+        httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        assertThat(response.getResponseBody(), is("{\"count\":2}"));
+        verify(node1RequestBuilder, times(1)).execute();
+        verify(node2RequestBuilder, times(2)).execute();
+    }
+
+    @Test
+    public void shouldNotFailOverIfRequestMayHaveReachedTheNode() throws Exception {
+        // given
+        when(node1RequestBuilder.execute()).thenReturn(failed(new RuntimeException("connection reset")));
+
+        // when
+        try {
+            httpClient.prepareGet("/_count").execute().get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("connection reset"));
+        }
+
+        // then
+        verify(asyncHttpClient, never()).prepareGet("http://node2:9200/_count");
+    }
+
+    @Test
+    public void shouldAddBasicAuthHeaderOnEveryNode() throws Exception {
+        // given
+        httpClient = new HttpClientWrapper(asyncHttpClient, asList("http://node1:9200", "http://node2:9200"), "user", "secret");
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+
+        // when
+        httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        verify(node1RequestBuilder).addHeader(HttpHeaderNames.AUTHORIZATION, "Basic dXNlcjpzZWNyZXQ=");
+    }
+
+    @Test
+    public void shouldRetryIdempotentRequestOnAnotherNode() throws Exception {
+        // given
+        httpClient.setRetryPolicy(new RetryPolicy(2, 0, 0));
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(429, "Too Many Requests", "{\"error\":{\"type\":\"es_rejected_execution_exception\"}}")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"count\":2}")));
+
+        // when
+        Response response = httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        assertThat(response.getResponseBody(), is("{\"count\":2}"));
+    }
+
+    @Test
+    public void shouldReturnLastResponseWhenRetriesAreExhausted() throws Exception {
+        // given
+        httpClient.setRetryPolicy(new RetryPolicy(2, 0, 0));
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(503, "Service Unavailable", "")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(503, "Service Unavailable", "")));
+
+        // when
+        Response response = httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        assertThat(response.getStatusCode(), is(503));
+        verify(node1RequestBuilder, atLeastOnce()).execute();
+        verify(node2RequestBuilder, atLeastOnce()).execute();
+    }
+
+    @Test
+    public void shouldNotRetryBulkRequest() throws Exception {
+        // given
+        httpClient.setRetryPolicy(new RetryPolicy(2, 0, 0));
+        BoundRequestBuilder bulkRequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.preparePost(anyString())).thenReturn(bulkRequestBuilder);
+        when(bulkRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(429, "Too Many Requests", "")));
+
+        // when
+        Response response = httpClient.preparePost("/_bulk").execute().get();
+
+        // then
+        assertThat(response.getStatusCode(), is(429));
+        verify(bulkRequestBuilder, times(1)).execute();
+    }
+
+    @Test
+    public void shouldHedgeSlowSearchOnAnotherNodeAndCancelTheSlowRequest() throws Exception {
+        // given
+        httpClient.setHedgeDelayMillis(10L);
+        BoundRequestBuilder slowNode = mock(BoundRequestBuilder.class);
+        BoundRequestBuilder fastNode = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.preparePost("http://node1:9200/products/_search")).thenReturn(slowNode);
+        when(asyncHttpClient.preparePost("http://node2:9200/products/_search")).thenReturn(fastNode);
+        ListenableCompletableFuture<Response> slowResponse = new ListenableCompletableFuture<>(new CompletableFuture<>());
+        when(slowNode.execute()).thenReturn(slowResponse);
+        when(fastNode.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"took\":1}")));
+
+        // when
+        Response response = httpClient.preparePost("/products/_search").execute().get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(response.getResponseBody(), is("{\"took\":1}"));
+        assertThat(slowResponse.isCancelled(), is(true));
+    }
+
+    @Test
+    public void shouldNotHedgeFastRequest() throws Exception {
+        // given
+        httpClient.setHedgeDelayMillis(1000L);
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"_id\":\"42\"}")));
+        when(asyncHttpClient.prepareGet("http://node1:9200/products/product/42")).thenReturn(node1RequestBuilder);
+
+        // when
+        httpClient.prepareGet("/products/product/42").execute().get();
+
+        // then
+        verify(asyncHttpClient, never()).prepareGet("http://node2:9200/products/product/42");
+    }
+
+    @Test
+    public void shouldOnlyHedgeSearchGetAndMultiGet() {
+        assertThat(request("POST", "/products/_search").isHedgeable(), is(true));
+        assertThat(request("POST", "/products/_mget").isHedgeable(), is(true));
+        assertThat(request("GET", "/products/product/42").isHedgeable(), is(true));
+        assertThat(request("GET", "/_cluster/health/products").isHedgeable(), is(false));
+        assertThat(request("GET", "/products/product/_count").isHedgeable(), is(false));
+        assertThat(request("POST", "/_search/scroll").isHedgeable(), is(false));
+        assertThat(request("POST", "/_bulk").isHedgeable(), is(false));
+    }
+
+    @Test
+    public void shouldNeitherHedgeNorRetrySearchThatOpensScrollContext() {
+        assertThat(((RoutingRequestBuilder) request("POST", "/products/_search").addQueryParam("scroll", "1m")).isHedgeable(), is(false));
+        assertThat(((RoutingRequestBuilder) request("POST", "/products/_search").addQueryParam("scroll", "1m")).isIdempotent(), is(false));
+        assertThat(((RoutingRequestBuilder) request("GET", "/products/_search").setQueryParams(singletonMap("scroll", singletonList("1m")))).isIdempotent(), is(false));
+    }
+
+    @Test
+    public void shouldNotHedgeSearchThatOpensScrollContext() throws Exception {
+        // given
+        httpClient.setHedgeDelayMillis(0L);
+        BoundRequestBuilder searchRequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.preparePost("http://node1:9200/products/_search")).thenReturn(searchRequestBuilder);
+        when(searchRequestBuilder.execute()).thenReturn(new ListenableCompletableFuture<>(new CompletableFuture<>()));
+
+        // when
+        httpClient.preparePost("/products/_search").addQueryParam("scroll", "1m").execute();
+        Thread.sleep(50);
+
+        // then
+        verify(asyncHttpClient, never()).preparePost("http://node2:9200/products/_search");
+    }
+
+    @Test
+    public void shouldFailFastWhenCircuitBreakersOfAllNodesAreOpen() throws Exception {
+        // given
+        httpClient.setCircuitBreakerPolicy(new CircuitBreakerPolicy(0.5, 60000).setMinimumNumberOfRequests(1));
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(503, "Service Unavailable", "")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(500, "Internal Server Error", "")));
+        httpClient.prepareGet("/_count").execute().get();
+        httpClient.prepareGet("/_count").execute().get();
+
+        // when
+        try {
+            httpClient.prepareGet("/_count").execute().get();
+            fail("expected NoNodeAvailableException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof NoNodeAvailableException, is(true));
+        }
+
+        // then
+        verify(node1RequestBuilder, times(1)).execute();
+        verify(node2RequestBuilder, times(1)).execute();
+    }
+
+    @Test
+    public void shouldSkipNodeWithOpenCircuitBreaker() throws Exception {
+        // given
+        httpClient.setCircuitBreakerPolicy(new CircuitBreakerPolicy(0.5, 60000).setMinimumNumberOfRequests(1));
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(429, "Too Many Requests", "")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        httpClient.prepareGet("/_count").execute().get();
+
+        // when
+        httpClient.prepareGet("/_count").execute().get();
+        httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        verify(node1RequestBuilder, times(1)).execute();
+        verify(node2RequestBuilder, times(2)).execute();
+    }
+
+    @Test
+    public void shouldShedRequestsBeyondTheConcurrencyLimit() throws Exception {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        httpClient.setConcurrencyLimiter(limiter);
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        when(node1RequestBuilder.execute()).thenReturn(new ListenableCompletableFuture<>(pending));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        ListenableFuture<Response> first = httpClient.prepareGet("/_count").execute();
+
+        // when
+        try {
+            httpClient.prepareGet("/_count").execute().get();
+            fail("expected ConcurrencyLimitExceededException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof ConcurrencyLimitExceededException, is(true));
+        }
+
+        // then
+        pending.complete(new MockResponse(200, "OK", "{}"));
+        assertThat(first.get().getStatusCode(), is(200));
+        assertThat(limiter.getInFlight(), is(0));
+        verify(node2RequestBuilder, never()).execute();
+    }
+
+    @Test
+    public void shouldGzipRequestBodyAboveThreshold() throws Exception {
+        // given
+        httpClient.setGzipRequestBodyThreshold(10);
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        String body = "{\"query\":{\"match_all\":{}}}";
+
+        // when
+        httpClient.prepareGet("/_count").setBody(body).execute().get();
+
+        // then
+        ArgumentCaptor<byte[]> compressed = ArgumentCaptor.forClass(byte[].class);
+        verify(node1RequestBuilder).setHeader(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+        verify(node1RequestBuilder).setBody(compressed.capture());
+        verify(node1RequestBuilder, never()).setBody(anyString());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getValue()))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            assertThat(out.toString("UTF-8"), is(body));
+        }
+    }
+
+    @Test
+    public void shouldNotGzipRequestBodyBelowThreshold() throws Exception {
+        // given
+        httpClient.setGzipRequestBodyThreshold(1024);
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+
+        // when
+        httpClient.prepareGet("/_count").setBody("{}").execute().get();
+
+        // then
+        verify(node1RequestBuilder).setBody("{}");
+        verify(node1RequestBuilder, never()).setHeader(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+    }
+
+    @Test
+    public void shouldAcceptGzipEncodedResponses() throws Exception {
+        // given
+        httpClient.setCompressResponses(true);
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+
+        // when
+        httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        verify(node1RequestBuilder).setHeader(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+    }
+
+    @Test
+    public void shouldFailRequestWhenDeadlineIsExceeded() throws Exception {
+        // given
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        ListenableCompletableFuture<Response> slowResponse = new ListenableCompletableFuture<>(pending);
+        when(node1RequestBuilder.execute()).thenReturn(slowResponse);
+
+        // when
+        try {
+            ((RoutingRequestBuilder) httpClient.prepareGet("/_count"))
+                    .setDeadline(Deadline.afterMillis(20))
+                    .execute().get(5, TimeUnit.SECONDS);
+            fail("expected DeadlineExceededException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof DeadlineExceededException, is(true));
+        }
+
+        // then
+        assertThat(slowResponse.isCancelled(), is(true));
+    }
+
+    @Test
+    public void shouldNotSendRequestAfterDefaultDeadline() throws Exception {
+        // given
+        httpClient.setDefaultDeadlineMillis(0L);
+
+        // when
+        try {
+            httpClient.prepareGet("/_count").execute().get();
+            fail("expected DeadlineExceededException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof DeadlineExceededException, is(true));
+        }
+
+        // then
+        verify(node1RequestBuilder, never()).execute();
+    }
+
+    @Test
+    public void shouldPassRemainingTimeToElasticsearch() throws Exception {
+        // given
+        BoundRequestBuilder searchRequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.preparePost("http://node1:9200/products/_search")).thenReturn(searchRequestBuilder);
+        when(searchRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+
+        // when
+        Deadline.afterMillis(60000).applyTo(httpClient.preparePost("/products/_search").setRequestTimeout(500)).execute().get();
+
+        // then
+        ArgumentCaptor<String> timeout = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Integer> requestTimeout = ArgumentCaptor.forClass(Integer.class);
+        verify(searchRequestBuilder).addQueryParam(eq("timeout"), timeout.capture());
+        verify(searchRequestBuilder, atLeastOnce()).setRequestTimeout(requestTimeout.capture());
+        assertThat(requestTimeout.getValue(), is(500));
+        assertThat(timeout.getValue().matches("\\d+ms"), is(true));
+    }
+
+    @Test
+    public void shouldSendBackgroundRequestsWithSeparateClient() throws Exception {
+        // given
+        AsyncHttpClient backgroundClient = mock(AsyncHttpClient.class);
+        BoundRequestBuilder bulkRequestBuilder = mock(BoundRequestBuilder.class);
+        when(backgroundClient.preparePost("http://node1:9200/_bulk")).thenReturn(bulkRequestBuilder);
+        when(bulkRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        httpClient.setAsyncHttpClient(RequestPriority.BACKGROUND, backgroundClient);
+
+        // when
+        httpClient.preparePost("/_bulk").execute().get();
+
+        // then
+        verify(bulkRequestBuilder).execute();
+        verify(asyncHttpClient, never()).preparePost(anyString());
+    }
+
+    @Test
+    public void shouldNotLetBackgroundRequestsUseInteractiveConcurrencyBudget() throws Exception {
+        // given
+        httpClient.setConcurrencyLimiter(RequestPriority.BACKGROUND, new ConcurrencyLimiter(1, 1, 1));
+        BoundRequestBuilder bulkRequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.preparePost("http://node1:9200/_bulk")).thenReturn(bulkRequestBuilder);
+        when(asyncHttpClient.preparePost("http://node2:9200/_bulk")).thenReturn(bulkRequestBuilder);
+        when(bulkRequestBuilder.execute()).thenReturn(new ListenableCompletableFuture<>(new CompletableFuture<>()));
+        when(node1RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        httpClient.preparePost("/_bulk").execute();
+
+        // when
+        ListenableFuture<Response> secondBulk = httpClient.preparePost("/_bulk").execute();
+        Response search = httpClient.prepareGet("/_count").execute().get();
+
+        // then
+        assertThat(secondBulk.isDone(), is(true));
+        assertThat(search.getStatusCode(), is(200));
+    }
+
+    @Test
+    public void shouldDeriveDefaultPriorityFromEndpoint() {
+        assertThat(request("POST", "/_bulk").getPriority(), is(RequestPriority.BACKGROUND));
+        assertThat(request("POST", "/products/_forcemerge").getPriority(), is(RequestPriority.BACKGROUND));
+        assertThat(request("POST", "/products/_search").getPriority(), is(RequestPriority.INTERACTIVE));
+        assertThat(request("POST", "/_bulk").setPriority(RequestPriority.INTERACTIVE).getPriority(), is(RequestPriority.INTERACTIVE));
+    }
+
+    @Test
+    public void shouldAddLocalPreferenceToSearch() throws Exception {
+        // given
+        httpClient.setLocalZone("zone-a");
+        BoundRequestBuilder searchRequestBuilder = mock(BoundRequestBuilder.class);
+        when(asyncHttpClient.preparePost("http://node1:9200/products/_search")).thenReturn(searchRequestBuilder);
+        when(searchRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+        when(node2RequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{}")));
+
+        // when
+        httpClient.preparePost("/products/_search").execute().get();
+        httpClient.prepareGet("/_count").addQueryParam("preference", "custom").execute().get();
+
+        // then
+        verify(searchRequestBuilder).addQueryParam("preference", "_local");
+        verify(node2RequestBuilder).addQueryParam("preference", "custom");
+        verify(node2RequestBuilder, never()).addQueryParam("preference", "_local");
+    }
+
+    private RoutingRequestBuilder request(String method, String url) {
+        return new RoutingRequestBuilder(httpClient, asyncHttpClient, method, url, null);
+    }
+
+    private static ListenableFuture<Response> failed(Throwable t) {
+        return new ListenableFuture.CompletedFailure<>(t);
+    }
+}
@@ -0,0 +1,132 @@
+package de.otto.flummi.util;
+
+import de.otto.flummi.CompletedFuture;
+import de.otto.flummi.MockResponse;
+import de.otto.flummi.response.GetResponse;
+import de.otto.flummi.response.HttpServerErrorException;
+import de.otto.flummi.response.MultiGetDocumentException;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.fail;
+
+public class MultiGetBatcherTest {
+
+    private static final String TWO_DOCS_RESPONSE = "{\"docs\":[" +
+            "{\"_index\":\"products\",\"_type\":\"product\",\"_id\":\"P1\",\"found\":true,\"_source\":{\"name\":\"one\"}}," +
+            "{\"_index\":\"products\",\"_type\":\"product\",\"_id\":\"P2\",\"found\":false}]}";
+
+    private HttpClientWrapper httpClient;
+    private BoundRequestBuilder boundRequestBuilder;
+
+    @BeforeMethod
+    public void setUp() {
+        httpClient = mock(HttpClientWrapper.class);
+        boundRequestBuilder = mock(BoundRequestBuilder.class);
+        when(httpClient.preparePost("/_mget")).thenReturn(boundRequestBuilder);
+        when(httpClient.getResponseExecutor()).thenReturn(Runnable::run);
+        when(boundRequestBuilder.setCharset(any(Charset.class))).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.setBody(anyString())).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.addHeader(anyString(), anyString())).thenReturn(boundRequestBuilder);
+    }
+
+    @Test
+    public void shouldSendFullBatchAsOneMultiGet() throws Exception {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", TWO_DOCS_RESPONSE)));
+        MultiGetBatcher batcher = new MultiGetBatcher(httpClient, 2, 10000);
+
+        // when
+        CompletableFuture<GetResponse> first = batcher.get("products", "product", "P1");
+        CompletableFuture<GetResponse> second = batcher.get("products", "product", "P2");
+
+        // then
+        verify(httpClient, times(1)).preparePost("/_mget");
+        verify(boundRequestBuilder).setBody("{\"docs\":[{\"_id\":\"P1\",\"_type\":\"product\",\"_index\":\"products\"},{\"_id\":\"P2\",\"_type\":\"product\",\"_index\":\"products\"}]}");
+        assertThat(first.get().isExists(), is(true));
+        assertThat(first.get().getId(), is("P1"));
+        assertThat(first.get().getSource().get("name").getAsString(), is("one"));
+        assertThat(second.get().isExists(), is(false));
+        assertThat(second.get().getId(), is("P2"));
+        assertThat(second.get().getSource(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldFailOnlyGetsOfDocumentsWithError() throws Exception {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"docs\":[" +
+                "{\"_index\":\"products\",\"_type\":\"product\",\"_id\":\"P1\",\"found\":true,\"_source\":{\"name\":\"one\"}}," +
+                "{\"_index\":\"products\",\"_type\":\"product\",\"_id\":\"P2\",\"found\":false}," +
+                "{\"_index\":\"products\",\"_type\":\"product\",\"_id\":\"P3\",\"error\":{\"type\":\"no_shard_available_action_exception\",\"reason\":\"No shard available\"}}," +
+                "{\"_index\":\"missing\",\"_type\":\"product\",\"_id\":\"P4\",\"error\":{\"type\":\"index_not_found_exception\",\"reason\":\"no such index\"}}]}")));
+        MultiGetBatcher batcher = new MultiGetBatcher(httpClient, 4, 10000);
+
+        // when
+        CompletableFuture<GetResponse> found = batcher.get("products", "product", "P1");
+        CompletableFuture<GetResponse> missing = batcher.get("products", "product", "P2");
+        CompletableFuture<GetResponse> failed = batcher.get("products", "product", "P3");
+        CompletableFuture<GetResponse> missingIndex = batcher.get("missing", "product", "P4");
+
+        // then
+        assertThat(found.get().isExists(), is(true));
+        assertThat(missing.get().isExists(), is(false));
+        assertThat(missingIndex.get().isExists(), is(false));
+        try {
+            failed.get();
+            fail("expected MultiGetDocumentException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(MultiGetDocumentException.class));
+            assertThat(((MultiGetDocumentException) e.getCause()).getId(), is("P3"));
+        }
+    }
+
+    @Test
+    public void shouldSendPartialBatchAfterWindow() throws Exception {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", TWO_DOCS_RESPONSE)));
+        MultiGetBatcher batcher = new MultiGetBatcher(httpClient, 100, 10);
+
+        // when
+        CompletableFuture<GetResponse> first = batcher.get("products", "product", "P1");
+        CompletableFuture<GetResponse> second = batcher.get("products", "product", "P2");
+
+        // then
+        assertThat(first.get(5, TimeUnit.SECONDS).getId(), is("P1"));
+        assertThat(second.get(5, TimeUnit.SECONDS).isExists(), is(false));
+        verify(httpClient, times(1)).preparePost("/_mget");
+    }
+
+    @Test
+    public void shouldFailAllGetsOfFailedBatch() throws Exception {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(500, "Internal Server Error", "{}")));
+        MultiGetBatcher batcher = new MultiGetBatcher(httpClient, 2, 10000);
+
+        // when
+        CompletableFuture<GetResponse> first = batcher.get("products", "product", "P1");
+        CompletableFuture<GetResponse> second = batcher.get("products", "product", "P2");
+
+        // then
+        for (CompletableFuture<GetResponse> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get();
+                fail("expected HttpServerErrorException");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(HttpServerErrorException.class));
+            }
+        }
+    }
+}
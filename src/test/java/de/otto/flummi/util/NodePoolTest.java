@@ -0,0 +1,210 @@
+package de.otto.flummi.util;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+public class NodePoolTest {
+
+    private long now;
+    private NodePool nodePool;
+
+    @BeforeMethod
+    public void setUp() {
+        now = 1000L;
+        nodePool = new NodePool(asList("http://node1:9200", "http://node2:9200/", "http://node3:9200"), () -> now);
+    }
+
+    @Test
+    public void shouldRotateNodesRoundRobin() {
+        assertThat(urls(nodePool.nodesForRequest()), contains("http://node1:9200", "http://node2:9200", "http://node3:9200"));
+        assertThat(urls(nodePool.nodesForRequest()), contains("http://node2:9200", "http://node3:9200", "http://node1:9200"));
+        assertThat(urls(nodePool.nodesForRequest()), contains("http://node3:9200", "http://node1:9200", "http://node2:9200"));
+        assertThat(urls(nodePool.nodesForRequest()), contains("http://node1:9200", "http://node2:9200", "http://node3:9200"));
+    }
+
+    @Test
+    public void shouldSkipQuarantinedNode() {
+        // given
+        nodePool.markFailed(nodePool.getNodes().get(1));
+
+        // when
+        List<Node> nodes = nodePool.nodesForRequest();
+
+        // then
+        assertThat(urls(nodes), contains("http://node1:9200", "http://node3:9200"));
+    }
+
+    @Test
+    public void shouldDoubleQuarantineForEveryFailedAttempt() {
+        // given
+        Node node = nodePool.getNodes().get(0);
+
+        // when
+        nodePool.markFailed(node);
+        long firstQuarantine = node.getQuarantinedUntil() - now;
+        now = node.getQuarantinedUntil();
+        nodePool.markFailed(node);
+        long secondQuarantine = node.getQuarantinedUntil() - now;
+
+        // then
+        assertThat(firstQuarantine, is(Node.MIN_QUARANTINE_MILLIS));
+        assertThat(secondQuarantine, is(2 * Node.MIN_QUARANTINE_MILLIS));
+    }
+
+    @Test
+    public void shouldRetryNodeAfterQuarantine() {
+        // given
+        Node node = nodePool.getNodes().get(0);
+        nodePool.markFailed(node);
+
+        // when
+        now += Node.MIN_QUARANTINE_MILLIS;
+
+        // then
+        assertThat(nodePool.nodesForRequest().contains(node), is(true));
+    }
+
+    @Test
+    public void shouldReturnNodeWithEarliestEndOfQuarantineIfAllNodesAreQuarantined() {
+        // given
+        nodePool.markFailed(nodePool.getNodes().get(0));
+        nodePool.markFailed(nodePool.getNodes().get(0));
+        nodePool.markFailed(nodePool.getNodes().get(2));
+        now += 10;
+        nodePool.markFailed(nodePool.getNodes().get(1));
+
+        // when
+        List<Node> nodes = nodePool.nodesForRequest();
+
+        // then
+        assertThat(urls(nodes), contains("http://node3:9200"));
+    }
+
+    @Test
+    public void shouldResetFailedAttemptsWhenNodeIsAlive() {
+        // given
+        Node node = nodePool.getNodes().get(0);
+        nodePool.markFailed(node);
+
+        // when
+        nodePool.markAlive(node);
+
+        // then
+        assertThat(node.isQuarantined(now), is(false));
+        assertThat(node.getFailedAttempts(), is(0));
+    }
+
+    @Test
+    public void shouldPreferNodeWithLowerLatency() {
+        // given
+        NodePool pool = new NodePool(asList("http://node1:9200", "http://node2:9200"), () -> now);
+        pool.setLatencyAware(true);
+        completeRequest(pool, pool.getNodes().get(0), 500);
+        completeRequest(pool, pool.getNodes().get(1), 10);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            // then
+            assertThat(pool.nodesForRequest().get(0).getUrl(), is("http://node2:9200"));
+        }
+    }
+
+    @Test
+    public void shouldPreferNodeWithFewerRequestsInFlight() {
+        // given
+        NodePool pool = new NodePool(asList("http://node1:9200", "http://node2:9200"), () -> now);
+        pool.setLatencyAware(true);
+        Node busyNode = pool.getNodes().get(1);
+        pool.tryAcquirePermission(busyNode);
+        pool.tryAcquirePermission(busyNode);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            // then
+            assertThat(pool.nodesForRequest().get(0).getUrl(), is("http://node1:9200"));
+        }
+        assertThat(busyNode.getInFlight(), is(2));
+    }
+
+    @Test
+    public void shouldForgetLatencyOfIdleNode() {
+        // given
+        Node node = nodePool.getNodes().get(0);
+        completeRequest(nodePool, node, 1000);
+        double loadAfterSlowRequest = node.getLoad(now);
+
+        // when
+        now += 10 * Node.LATENCY_DECAY_MILLIS;
+
+        // then
+        assertThat(loadAfterSlowRequest, is(1001.0));
+        assertThat(node.getLoad(now) < 2, is(true));
+    }
+
+    @Test
+    public void shouldPreferNodesInLocalZone() {
+        // given
+        nodePool.setZone("http://node1:9200", "zone-a");
+        nodePool.setZone("http://node2:9200", "zone-b");
+        nodePool.setZone("http://node3:9200", "zone-b");
+        nodePool.setLocalZone("zone-b");
+
+        // when
+        List<Node> first = nodePool.nodesForRequest();
+        List<Node> second = nodePool.nodesForRequest();
+
+        // then
+        assertThat(urls(first), contains("http://node2:9200", "http://node3:9200", "http://node1:9200"));
+        assertThat(urls(second), contains("http://node2:9200", "http://node3:9200", "http://node1:9200"));
+    }
+
+    @Test
+    public void shouldUseRemoteZoneIfLocalNodesAreQuarantined() {
+        // given
+        nodePool.setZone("http://node1:9200", "zone-a");
+        nodePool.setLocalZone("zone-a");
+        nodePool.markFailed(nodePool.getNodes().get(0));
+
+        // when
+        List<Node> nodes = nodePool.nodesForRequest();
+
+        // then
+        assertThat(urls(nodes), contains("http://node2:9200", "http://node3:9200"));
+    }
+
+    @Test
+    public void shouldPreferLocalShardCopies() {
+        assertThat(nodePool.localPreference(), is((String) null));
+
+        nodePool.setLocalZone("zone-a");
+        assertThat(nodePool.localPreference(), is("_local"));
+
+        nodePool.getNodes().get(0).setId("id1");
+        nodePool.getNodes().get(0).setZone("zone-a");
+        nodePool.getNodes().get(1).setId("id2");
+        nodePool.getNodes().get(1).setZone("zone-b");
+        assertThat(nodePool.localPreference(), is("_prefer_nodes:id1"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectEmptyNodeList() {
+        new NodePool(asList());
+    }
+
+    private static void completeRequest(NodePool pool, Node node, long latencyMillis) {
+        pool.tryAcquirePermission(node);
+        pool.onRequestComplete(node, false, latencyMillis);
+    }
+
+    private static List<String> urls(List<Node> nodes) {
+        return nodes.stream().map(Node::getUrl).collect(toList());
+    }
+}
@@ -0,0 +1,90 @@
+package de.otto.flummi.util;
+
+import de.otto.flummi.MockResponse;
+import org.asynchttpclient.AsyncHttpClient;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(3, 100, 1000);
+
+    @Test
+    public void shouldRetryRejectedExecution() {
+        assertThat(RetryPolicy.isRetryable(new MockResponse(429, "Too Many Requests", "{\"error\":{\"type\":\"es_rejected_execution_exception\"},\"status\":429}")), is(true));
+    }
+
+    @Test
+    public void shouldRetryUnavailableNode() {
+        assertThat(RetryPolicy.isRetryable(new MockResponse(502, "Bad Gateway", "")), is(true));
+        assertThat(RetryPolicy.isRetryable(new MockResponse(503, "Service Unavailable", "")), is(true));
+        assertThat(RetryPolicy.isRetryable(new MockResponse(504, "Gateway Timeout", "<html/>")), is(true));
+    }
+
+    @Test
+    public void shouldClassifyServerErrorByErrorType() {
+        assertThat(RetryPolicy.isRetryable(new MockResponse(500, "Internal Server Error", "{\"error\":{\"type\":\"node_not_connected_exception\"}}")), is(true));
+        assertThat(RetryPolicy.isRetryable(new MockResponse(500, "Internal Server Error", "{\"error\":{\"type\":\"search_phase_execution_exception\"}}")), is(false));
+    }
+
+    @Test
+    public void shouldNotRetryPermanentCircuitBreakerException() {
+        assertThat(RetryPolicy.isRetryable(new MockResponse(429, "Too Many Requests", "{\"error\":{\"type\":\"circuit_breaking_exception\",\"durability\":\"PERMANENT\"}}")), is(false));
+        assertThat(RetryPolicy.isRetryable(new MockResponse(429, "Too Many Requests", "{\"error\":{\"type\":\"circuit_breaking_exception\",\"durability\":\"TRANSIENT\"}}")), is(true));
+    }
+
+    @Test
+    public void shouldNotRetryClientErrors() {
+        assertThat(RetryPolicy.isRetryable(new MockResponse(400, "Bad Request", "{\"error\":{\"type\":\"parsing_exception\"}}")), is(false));
+        assertThat(RetryPolicy.isRetryable(new MockResponse(404, "Not Found", "")), is(false));
+    }
+
+    @Test
+    public void shouldRetryConnectionErrorsButNotTimeouts() {
+        assertThat(RetryPolicy.isRetryable(new IOException("Connection reset by peer")), is(true));
+        assertThat(RetryPolicy.isRetryable(new TimeoutException("Request timeout")), is(false));
+    }
+
+    @Test
+    public void shouldOnlyRetryIdempotentRequestsByDefault() {
+        MockResponse rejected = new MockResponse(429, "Too Many Requests", "");
+
+        assertThat(retryPolicy.shouldRetry(request("POST", "/products/_search"), rejected, 0), is(true));
+        assertThat(retryPolicy.shouldRetry(request("GET", "/products/product/42"), rejected, 0), is(true));
+        assertThat(retryPolicy.shouldRetry(request("POST", "/_bulk"), rejected, 0), is(false));
+        assertThat(retryPolicy.shouldRetry(request("POST", "/_search/scroll"), rejected, 0), is(false));
+    }
+
+    @Test
+    public void shouldRetryNonIdempotentRequestsIfConfigured() {
+        retryPolicy.setRetryNonIdempotentRequests(true);
+
+        assertThat(retryPolicy.shouldRetry(request("POST", "/_bulk"), new MockResponse(429, "Too Many Requests", ""), 0), is(true));
+    }
+
+    @Test
+    public void shouldStopAfterMaxRetries() {
+        MockResponse unavailable = new MockResponse(503, "Service Unavailable", "");
+
+        assertThat(retryPolicy.shouldRetry(request("GET", "/_count"), unavailable, 2), is(true));
+        assertThat(retryPolicy.shouldRetry(request("GET", "/_count"), unavailable, 3), is(false));
+    }
+
+    @Test
+    public void shouldLimitBackoff() {
+        for (int retries = 0; retries < 10; retries++) {
+            assertThat(retryPolicy.backoffMillis(retries), lessThanOrEqualTo(Math.min(1000L, 100L << retries)));
+        }
+    }
+
+    private static RoutingRequestBuilder request(String method, String url) {
+        return new RoutingRequestBuilder(null, mock(AsyncHttpClient.class), method, url, null);
+    }
+}
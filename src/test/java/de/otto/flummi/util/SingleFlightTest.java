@@ -0,0 +1,114 @@
+package de.otto.flummi.util;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.testng.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void shouldCollapseConcurrentCallsWithSameKey() throws Exception {
+        // given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        CompletableFuture<String> first = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        CompletableFuture<String> second = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        call.complete("result");
+
+        // then
+        assertThat(calls.get(), is(1));
+        assertThat(first.get(), is("result"));
+        assertThat(second.get(), is("result"));
+        assertThat(singleFlight.getInFlight(), is(0));
+    }
+
+    @Test
+    public void shouldNotCollapseCallsWithDifferentKeys() {
+        // given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        singleFlight.execute("other key", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        // then
+        assertThat(calls.get(), is(2));
+        assertThat(singleFlight.getInFlight(), is(2));
+    }
+
+    @Test
+    public void shouldStartNewCallAfterCompletion() throws Exception {
+        // given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        singleFlight.execute("key", () -> CompletableFuture.completedFuture("first"));
+
+        // when
+        CompletableFuture<String> result = singleFlight.execute("key", () -> CompletableFuture.completedFuture("second"));
+
+        // then
+        assertThat(result.get(), is("second"));
+    }
+
+    @Test
+    public void shouldNotCancelCallWhenOneCallerCancels() throws Exception {
+        // given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute("key", () -> call);
+        CompletableFuture<String> second = singleFlight.execute("key", () -> call);
+
+        // when
+        first.cancel(true);
+        call.complete("result");
+
+        // then
+        assertThat(call.isCancelled(), is(false));
+        assertThat(second.get(), is("result"));
+    }
+
+    @Test
+    public void shouldPassFailureToAllCallers() throws Exception {
+        // given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute("key", () -> call);
+        CompletableFuture<String> second = singleFlight.execute("key", () -> call);
+
+        // when
+        call.completeExceptionally(new IllegalStateException("failed"));
+
+        // then
+        for (CompletableFuture<String> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get();
+                fail("expected IllegalStateException");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+            }
+        }
+        assertThat(singleFlight.getInFlight(), is(0));
+    }
+}
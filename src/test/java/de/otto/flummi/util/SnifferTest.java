@@ -0,0 +1,131 @@
+package de.otto.flummi.util;
+
+import de.otto.flummi.CompletedFuture;
+import de.otto.flummi.MockResponse;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SnifferTest {
+
+    private static final String NODES_RESPONSE = "{\"nodes\":{" +
+            "\"n1\":{\"roles\":[\"master\",\"data\",\"ingest\"],\"http\":{\"publish_address\":\"10.0.0.1:9200\"}}," +
+            "\"n2\":{\"roles\":[\"data\"],\"http\":{\"publish_address\":\"es-data-2/10.0.0.2:9200\"}}," +
+            "\"n3\":{\"roles\":[\"master\"],\"http\":{\"publish_address\":\"10.0.0.3:9200\"}}," +
+            "\"n4\":{\"roles\":[],\"http\":{\"publish_address\":\"10.0.0.4:9200\"}}," +
+            "\"n5\":{\"roles\":[\"data\"]}" +
+            "}}";
+
+    private HttpClientWrapper httpClient;
+    private BoundRequestBuilder boundRequestBuilder;
+    private NodePool nodePool;
+
+    @BeforeMethod
+    public void setUp() {
+        httpClient = mock(HttpClientWrapper.class);
+        boundRequestBuilder = mock(BoundRequestBuilder.class);
+        nodePool = new NodePool(asList("https://seed:9200"));
+        when(httpClient.getNodePool()).thenReturn(nodePool);
+        when(httpClient.prepareGet("/_nodes/http")).thenReturn(boundRequestBuilder);
+        when(boundRequestBuilder.addHeader(anyString(), anyString())).thenReturn(boundRequestBuilder);
+    }
+
+    @Test
+    public void shouldReplaceNodesWithSniffedDataAndCoordinatingNodes() {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", NODES_RESPONSE)));
+
+        // when
+        new Sniffer(httpClient, 1000).sniff();
+
+        // then
+        assertThat(urls(nodePool.getNodes()), containsInAnyOrder("https://10.0.0.1:9200", "https://es-data-2:9200", "https://10.0.0.4:9200"));
+    }
+
+    @Test
+    public void shouldRecognizeDataTierRolesOfElasticsearch710() {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"nodes\":{" +
+                "\"n1\":{\"roles\":[\"data_content\",\"data_hot\",\"master\"],\"http\":{\"publish_address\":\"10.0.0.1:9200\"}}," +
+                "\"n2\":{\"roles\":[\"data_warm\"],\"http\":{\"publish_address\":\"10.0.0.2:9200\"}}," +
+                "\"n3\":{\"roles\":[\"ingest\",\"master\"],\"http\":{\"publish_address\":\"10.0.0.3:9200\"}}," +
+                "\"n4\":{\"roles\":[\"master\",\"remote_cluster_client\"],\"http\":{\"publish_address\":\"10.0.0.4:9200\"}}" +
+                "}}")));
+
+        // when
+        new Sniffer(httpClient, 1000).sniff();
+
+        // then
+        assertThat(urls(nodePool.getNodes()), containsInAnyOrder("https://10.0.0.1:9200", "https://10.0.0.2:9200", "https://10.0.0.3:9200"));
+    }
+
+    @Test
+    public void shouldKeepNodesIfNoHttpNodesWereFound() {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"nodes\":{}}")));
+
+        // when
+        List<String> sniffed = new Sniffer(httpClient, 1000).sniff();
+
+        // then
+        assertThat(sniffed.isEmpty(), is(true));
+        assertThat(urls(nodePool.getNodes()), contains("https://seed:9200"));
+    }
+
+    @Test
+    public void shouldKeepQuarantineOfKnownNodes() {
+        // given
+        nodePool.setNodes(asList("https://10.0.0.1:9200", "https://10.0.0.9:9200"));
+        Node known = nodePool.getNodes().get(0);
+        nodePool.markFailed(known);
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", NODES_RESPONSE)));
+
+        // when
+        new Sniffer(httpClient, 1000).sniff();
+
+        // then
+        Node sniffed = nodePool.getNodes().stream().filter(known::equals).findFirst().get();
+        assertThat(sniffed.getFailedAttempts(), is(1));
+    }
+
+    @Test
+    public void shouldTakeIdAndZoneFromNodeInfo() {
+        // given
+        when(boundRequestBuilder.execute()).thenReturn(new CompletedFuture<>(new MockResponse(200, "OK", "{\"nodes\":{" +
+                "\"n1\":{\"roles\":[\"data\"],\"attributes\":{\"az\":\"eu-1a\"},\"http\":{\"publish_address\":\"10.0.0.1:9200\"}}," +
+                "\"n2\":{\"roles\":[\"data\"],\"http\":{\"publish_address\":\"10.0.0.2:9200\"}}" +
+                "}}")));
+
+        // when
+        new Sniffer(httpClient, 1000).setZoneAttribute("az").sniff();
+
+        // then
+        Node first = nodePool.getNodes().stream().filter(n -> n.getUrl().equals("https://10.0.0.1:9200")).findFirst().get();
+        Node second = nodePool.getNodes().stream().filter(n -> n.getUrl().equals("https://10.0.0.2:9200")).findFirst().get();
+        assertThat(first.getId(), is("n1"));
+        assertThat(first.getZone(), is("eu-1a"));
+        assertThat(second.getId(), is("n2"));
+        assertThat(second.getZone(), is((String) null));
+    }
+
+    @Test
+    public void shouldParsePublishAddress() {
+        assertThat(Sniffer.toHostAndPort("10.0.0.1:9200"), is("10.0.0.1:9200"));
+        assertThat(Sniffer.toHostAndPort("es-node/10.0.0.1:9200"), is("es-node:9200"));
+    }
+
+    private static List<String> urls(List<Node> nodes) {
+        return nodes.stream().map(Node::getUrl).collect(toList());
+    }
+}
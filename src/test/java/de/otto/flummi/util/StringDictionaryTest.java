@@ -0,0 +1,104 @@
+package de.otto.flummi.util;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class StringDictionaryTest {
+
+    private static final String SOURCE = "{\"name\":\"Shoe\",\"brand\":\"adidas\",\"price\":12345678901234,\"tags\":[\"a\",null,true],\"stock\":{\"count\":1.50}}";
+
+    @Test
+    public void shouldParseLikeGson() {
+        // when
+        JsonObject source = new StringDictionary(100, true).parse(new StringReader(SOURCE)).getAsJsonObject();
+
+        // then
+        assertThat(source, is(new JsonParser().parse(SOURCE)));
+        assertThat(source.toString(), is(SOURCE));
+    }
+
+    @Test
+    public void shouldKeepNumberLiterals() {
+        // given
+        String source = "{\"price\":1e3,\"count\":1.50,\"big\":123456789012345678901234567890}";
+
+        // when
+        JsonObject parsed = new StringDictionary(100, false).parse(new StringReader(source)).getAsJsonObject();
+
+        // then
+        assertThat(parsed.toString(), is(source));
+        assertThat(parsed, is(new JsonParser().parse(source)));
+    }
+
+    @Test
+    public void shouldShareFieldNames() {
+        // given
+        StringDictionary dictionary = new StringDictionary(100, false);
+
+        // when
+        JsonObject first = dictionary.parse(new StringReader(SOURCE)).getAsJsonObject();
+        JsonObject second = dictionary.parse(new StringReader(SOURCE)).getAsJsonObject();
+
+        // then
+        assertThat(nameOf(first, 1), is(sameInstance(nameOf(second, 1))));
+        assertThat(first.get("brand").getAsString(), is(not(sameInstance(second.get("brand").getAsString()))));
+        assertThat(dictionary.size(), is(6));
+    }
+
+    @Test
+    public void shouldShareShortValuesIfEnabled() {
+        // given
+        StringDictionary dictionary = new StringDictionary(100, true);
+
+        // when
+        JsonObject first = dictionary.parse(new StringReader(SOURCE)).getAsJsonObject();
+        JsonObject second = dictionary.parse(new StringReader(SOURCE)).getAsJsonObject();
+
+        // then
+        assertThat(first.get("brand").getAsString(), is(sameInstance(second.get("brand").getAsString())));
+    }
+
+    @Test
+    public void shouldStopInterningWhenFull() {
+        // given
+        StringDictionary dictionary = new StringDictionary(1, false);
+        dictionary.intern("name");
+
+        // when
+        String brand = new String("brand");
+
+        // then
+        assertThat(dictionary.intern(brand), is(sameInstance(brand)));
+        assertThat(dictionary.intern(new String("name")), is(sameInstance(dictionary.intern("name"))));
+        assertThat(dictionary.size(), is(1));
+    }
+
+    @Test
+    public void shouldKeepSharingNamesWhenValuesAreFull() {
+        // given
+        StringDictionary dictionary = new StringDictionary(6, true);
+        for (int i = 0; i < 10; i++) {
+            dictionary.parse(new StringReader("{\"brand\":\"brand" + i + "\"}"));
+        }
+
+        // when
+        JsonObject first = dictionary.parse(new StringReader(SOURCE)).getAsJsonObject();
+        JsonObject second = dictionary.parse(new StringReader(SOURCE)).getAsJsonObject();
+
+        // then
+        assertThat(nameOf(first, 4), is(sameInstance(nameOf(second, 4))));
+    }
+
+    private static String nameOf(JsonObject object, int index) {
+        return object.entrySet().stream().skip(index).findFirst().map(Map.Entry::getKey).get();
+    }
+}